@@ -0,0 +1,88 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt;
+
+import io.advantageous.reakt.exception.RejectedPromiseException;
+
+
+/**
+ * Callback for a boolean result, replied without boxing.
+ * <p>
+ * This is the primitive counterpart of {@link Callback}&lt;Boolean&gt;;
+ * {@link #boxedCallback()} bridges to code that expects the boxed callback.
+ *
+ * @author Rick Hightower
+ */
+public interface BooleanCallback extends BooleanConsumer {
+
+    /**
+     * (Service view)
+     * Sends back the result.
+     *
+     * @param result result value to send.
+     */
+    void reply(boolean result);
+
+    /**
+     * (Service view)
+     * Sends back a failed result.
+     *
+     * @param error error
+     */
+    void reject(Throwable error);
+
+    /**
+     * (Service view)
+     * Sends back a failed result.
+     *
+     * @param errorMessage error message
+     */
+    default void reject(final String errorMessage) {
+        reject(RejectedPromiseException.stackless(errorMessage));
+    }
+
+    /**
+     * Bridge between Consumer world and Callback world.
+     *
+     * @param value the input argument
+     */
+    @Override
+    default void accept(final boolean value) {
+        reply(value);
+    }
+
+    /**
+     * Boxed view of this callback, for services that reply with a {@code Callback<Boolean>}.
+     * A null value is rejected with a {@code NullPointerException}.
+     *
+     * @return boxed callback that forwards to this callback
+     */
+    default Callback<Boolean> boxedCallback() {
+        return result -> {
+            if (result.failure()) {
+                reject(result.cause());
+            } else if (result.get() == null) {
+                reject(new NullPointerException("null reply to a boolean callback"));
+            } else {
+                reply(result.get());
+            }
+        };
+    }
+}
@@ -77,7 +77,7 @@ public interface Callback<T> extends Consumer<T>, CallbackHandle<T> {
      * @param errorMessage error message
      */
     default void reject(final String errorMessage) {
-        reject(new RejectedPromiseException(errorMessage));
+        reject(RejectedPromiseException.stackless(errorMessage));
     }
 
 
@@ -104,7 +104,7 @@ public interface Callback<T> extends Consumer<T>, CallbackHandle<T> {
      * @param result result value to send.
      */
     default void reply(final T result) {
-        onResult(new ResultImpl<>(result));
+        onResult(ResultImpl.result(result));
     }
 
 
@@ -56,5 +56,26 @@ public interface CallbackHandle<T> {
      */
     void resolve(final T result);
 
+    /**
+     * (Service view)
+     * Cancellation token: true once the caller cancelled the call or it timed out, so a long running producer
+     * can stop early.
+     *
+     * @return true if nobody is waiting for the result anymore
+     */
+    default boolean cancelled() {
+        return false;
+    }
+
+    /**
+     * (Service view)
+     * Registers a hook that releases the resources of the call (connections, buffers, queued work)
+     * if the caller cancels it or it times out.
+     * The hook runs right away if that already happened. Callbacks that cannot be cancelled ignore it.
+     *
+     * @param hook cancel hook
+     */
+    default void onCancel(final Runnable hook) {
+    }
 
 }
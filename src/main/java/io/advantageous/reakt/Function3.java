@@ -0,0 +1,43 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt;
+
+/**
+ * Function of three arguments, the three argument counterpart of {@link java.util.function.BiFunction}.
+ *
+ * @param <A> type of the first argument
+ * @param <B> type of the second argument
+ * @param <C> type of the third argument
+ * @param <R> type of the result
+ * @author Rick Hightower
+ */
+@FunctionalInterface
+public interface Function3<A, B, C, R> {
+
+    /**
+     * Applies this function to the given arguments.
+     *
+     * @param a first argument
+     * @param b second argument
+     * @param c third argument
+     * @return the function result
+     */
+    R apply(A a, B b, C c);
+}
@@ -36,21 +36,24 @@ public interface Result<T> {
     /**
      * DONE Result for Callback Void.
      */
-    Result<Void> DONE = new ResultImpl<>(null);
+    Result<Void> DONE = ResultImpl.result(null);
 
     /**
      * Create a result.
+     * Null, booleans, small integers and the empty collections get a shared result, so this does not allocate.
      *
      * @param value value
      * @param <T>   T
      * @return result
      */
     static <T> Result<T> result(T value) {
-        return new ResultImpl<>(value);
+        return ResultImpl.result(value);
     }
 
     /**
-     * Create a result
+     * Create a result.
+     * Results are immutable: a failed result can be kept and passed to {@code onResult} again, so rejecting with a
+     * fixed error does not allocate per call.
      *
      * @param error error
      * @param <T>   T
@@ -0,0 +1,22 @@
+package io.advantageous.reakt.exception;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A promise was cancelled by its caller before a result came back.
+ * <p>
+ * Cancelling is control flow, not a bug, so this exception has no stack trace.
+ */
+public class PromiseCancelledException extends CancellationException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PromiseCancelledException() {
+        super("Promise cancelled");
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,56 @@
+package io.advantageous.reakt.exception;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A promise timed out.
+ * <p>
+ * When a downstream service stalls, many promises time out in the same tick, so this exception is cheap to make:
+ * it has no stack trace, and it keeps the times as primitives and only formats its message when asked.
+ */
+public class PromiseTimeoutException extends TimeoutException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long startTime;
+    private final long timeout;
+    private final long time;
+
+    /**
+     * @param startTime time the promise was created
+     * @param timeout   timeout in the units of the time source
+     * @param time      time the timeout was detected
+     */
+    public PromiseTimeoutException(final long startTime, final long timeout, final long time) {
+        this.startTime = startTime;
+        this.timeout = timeout;
+        this.time = time;
+    }
+
+    public long startTime() {
+        return startTime;
+    }
+
+    public long timeout() {
+        return timeout;
+    }
+
+    public long time() {
+        return time;
+    }
+
+    public long elapsedTime() {
+        return time - startTime;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format("Operation timed out start time %d timeout duration ms %d time %d elapsed time %d",
+                startTime, timeout, time, time - startTime);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -3,6 +3,8 @@ package io.advantageous.reakt.exception;
 
 public class RejectedPromiseException extends RuntimeException {
 
+    private static final long serialVersionUID = 1L;
+
     public RejectedPromiseException(String s) {
         super(s);
     }
@@ -14,4 +16,19 @@ public class RejectedPromiseException extends RuntimeException {
     public RejectedPromiseException(Throwable cause) {
         super(cause);
     }
+
+    protected RejectedPromiseException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    /**
+     * Rejection without a stack trace. The message says what went wrong, and the stack would only show the
+     * callback plumbing, so this is what {@code Callback.reject(String)} uses.
+     *
+     * @param message message
+     * @return exception
+     */
+    public static RejectedPromiseException stackless(String message) {
+        return new RejectedPromiseException(message, false);
+    }
 }
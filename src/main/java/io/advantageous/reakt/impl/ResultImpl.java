@@ -22,24 +22,77 @@ import io.advantageous.reakt.Expected;
 import io.advantageous.reakt.Result;
 import io.advantageous.reakt.exception.ResultFailedException;
 
+import java.util.Collections;
 import java.util.function.Consumer;
 
 /**
  * The result of an async operation.
  * <p>
  * This was modeled after Vert.x AsyncResult and after the types of results one would deal with in JavaScript.
+ * <p>
+ * Results are immutable, so {@link #result(Object)} hands out shared instances for common values (null, booleans,
+ * small integers and the empty collections) instead of allocating, and those shared results also carry their
+ * {@code Expected}, so {@code expect()} does not allocate either. A failed result can be kept and sent again the
+ * same way, so a service that rejects with a fixed error allocates nothing per call.
  *
  * @param <T> type of value expected in the result.
  * @author Rick Hightower
  */
 public class ResultImpl<T> implements Result<T> {
 
+    private static final int INTEGER_CACHE_LOW = -128;
+    private static final int INTEGER_CACHE_HIGH = 127;
+
+    private static final Result<?> NULL = new SharedResult<>(null);
+    private static final Result<?> TRUE = new SharedResult<>(Boolean.TRUE);
+    private static final Result<?> FALSE = new SharedResult<>(Boolean.FALSE);
+    private static final Result<?> EMPTY_LIST = new SharedResult<>(Collections.emptyList());
+    private static final Result<?> EMPTY_SET = new SharedResult<>(Collections.emptySet());
+    private static final Result<?> EMPTY_MAP = new SharedResult<>(Collections.emptyMap());
+    private static final Result<?>[] INTEGERS = new Result<?>[INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW + 1];
+
+    static {
+        for (int index = 0; index < INTEGERS.length; index++) {
+            INTEGERS[index] = new SharedResult<>(index + INTEGER_CACHE_LOW);
+        }
+    }
+
     private final Object object;
 
     public ResultImpl(final Object object) {
         this.object = object;
     }
 
+    /**
+     * Successful result, shared if the value is a common one.
+     *
+     * @param value value
+     * @param <T>   type of value
+     * @return result
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Result<T> result(final T value) {
+        if (value == null) {
+            return (Result<T>) NULL;
+        }
+        if (value instanceof Boolean) {
+            return (Result<T>) ((Boolean) value ? TRUE : FALSE);
+        }
+        if (value instanceof Integer) {
+            final int intValue = (Integer) value;
+            if (intValue >= INTEGER_CACHE_LOW && intValue <= INTEGER_CACHE_HIGH) {
+                return (Result<T>) INTEGERS[intValue - INTEGER_CACHE_LOW];
+            }
+        } else if (value == Collections.emptyList()) {
+            return (Result<T>) EMPTY_LIST;
+        } else if (value == Collections.emptySet()) {
+            return (Result<T>) EMPTY_SET;
+        } else if (value == Collections.emptyMap()) {
+            return (Result<T>) EMPTY_MAP;
+        }
+        return new ResultImpl<>(value);
+    }
+
     @Override
     public Result<T> thenExpect(final Consumer<Expected<T>> consumer) {
         if (success()) consumer.accept(expect());
@@ -47,14 +100,17 @@ public class ResultImpl<T> implements Result<T> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public Result<T> then(final Consumer<T> consumer) {
-        if (success()) consumer.accept(get());
+        final Object object = this.object;
+        if (!(object instanceof Throwable)) consumer.accept((T) object);
         return this;
     }
 
     @Override
     public Result<T> catchError(final Consumer<Throwable> handler) {
-        if (failure()) handler.accept(cause());
+        final Object object = this.object;
+        if (object instanceof Throwable) handler.accept((Throwable) object);
         return this;
     }
 
@@ -73,31 +129,52 @@ public class ResultImpl<T> implements Result<T> {
 
     @Override
     public Throwable cause() {
-        return this.object instanceof Throwable ? (Throwable) this.object : null;
+        final Object object = this.object;
+        return object instanceof Throwable ? (Throwable) object : null;
     }
 
     @SuppressWarnings("unchecked")
     public Expected<T> expect() {
-        if (failure()) throw new IllegalStateException(cause());
-        return Expected.ofNullable((T) this.object);
+        final Object object = this.object;
+        if (object instanceof Throwable) throw new IllegalStateException((Throwable) object);
+        return Expected.ofNullable((T) object);
     }
 
     @SuppressWarnings("unchecked")
     public T get() {
-        if (failure()) {
-            if (cause() instanceof RuntimeException) {
-                throw (RuntimeException) cause();
+        final Object object = this.object;
+        if (object instanceof Throwable) {
+            if (object instanceof RuntimeException) {
+                throw (RuntimeException) object;
             } else {
-                throw new ResultFailedException(cause());
+                throw new ResultFailedException((Throwable) object);
             }
         }
-        return (T) this.object;
+        return (T) object;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public T orElse(final T other) {
-        return success() ? (T) this.object : other;
+        final Object object = this.object;
+        return object instanceof Throwable ? other : (T) object;
     }
 
+    /**
+     * Shared result of a common value, with its {@code Expected} built once.
+     */
+    private static final class SharedResult<T> extends ResultImpl<T> {
+
+        private final Expected<T> expected;
+
+        private SharedResult(final T value) {
+            super(value);
+            this.expected = Expected.ofNullable(value);
+        }
+
+        @Override
+        public Expected<T> expect() {
+            return expected;
+        }
+    }
 }
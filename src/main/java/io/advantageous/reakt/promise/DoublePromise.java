@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.DoubleCallback;
+
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Promise of a double result.
+ * <p>
+ * Unlike {@code Promise<Double>}, replying does not box the value or allocate a {@code Result}, which matters for
+ * measurements and rates that flow through promises at a high rate.
+ * Handlers follow the same rules as {@link Promise}: there is one then and one catchError handler, the latest
+ * registered wins, and there can be many whenComplete listeners.
+ *
+ * @author Rick Hightower
+ */
+public interface DoublePromise extends DoubleCallback {
+
+    /**
+     * If a result is sent, and there was no error, then handle the result.
+     *
+     * @param consumer executed if result has no error.
+     * @return this, fluent API
+     */
+    DoublePromise then(DoubleConsumer consumer);
+
+    /**
+     * If a result is sent, and there is an error, then handle the error.
+     *
+     * @param consumer executed if result has error.
+     * @return this, fluent API
+     */
+    DoublePromise catchError(Consumer<Throwable> consumer);
+
+    /**
+     * Notified of completeness. There can be many whenComplete listeners.
+     *
+     * @param doneListener doneListener
+     * @return this, fluent API
+     */
+    DoublePromise whenComplete(Consumer<DoublePromise> doneListener);
+
+    /**
+     * @return true if result is sent.
+     */
+    boolean complete();
+
+    /**
+     * @return true if result is sent successfully.
+     */
+    boolean success();
+
+    /**
+     * @return true if result is sent and result outcome is a failure.
+     */
+    boolean failure();
+
+    /**
+     * @return cause of error associated with the result
+     */
+    Throwable cause();
+
+    /**
+     * @return value associated with a successful result.
+     */
+    double get();
+
+    /**
+     * @param other value which is returned if there was an error.
+     * @return the value, if no error, or if error return {@code other}
+     */
+    double orElse(double other);
+
+    /**
+     * Creates a new promise that completes with the mapped value, without boxing.
+     *
+     * @param mapper mapper function
+     * @return mapped promise
+     */
+    DoublePromise thenMap(DoubleUnaryOperator mapper);
+
+    /**
+     * Creates a new promise that completes with the mapped value.
+     *
+     * @param mapper mapper function
+     * @param <U>    new type for new promise
+     * @return mapped promise
+     */
+    <U> Promise<U> thenMapToObj(DoubleFunction<? extends U> mapper);
+
+    /**
+     * Bridge to the boxed API.
+     *
+     * @return a promise that completes with the boxed value when this promise completes
+     */
+    Promise<Double> boxed();
+}
@@ -23,11 +23,15 @@ import io.advantageous.reakt.Expected;
 import io.advantageous.reakt.Invokable;
 import io.advantageous.reakt.Result;
 import io.advantageous.reakt.promise.impl.BasePromise;
+import io.advantageous.reakt.promise.impl.PromiseUtil;
 import io.advantageous.reakt.reactor.Reactor;
 
 import java.time.Duration;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * A promise is like a non-blocking {@code Future}({@link java.util.concurrent.Future}).
@@ -111,6 +115,76 @@ public interface Promise<T> extends Callback<T>, Result<T>, PromiseHandle<T> {
      */
     <U> Promise<U> thenMap(Function<? super T, ? extends U> mapper);
 
+    /**
+     * Chains an async call: when this promise succeeds, the mapper starts the next call and the returned promise
+     * completes with its outcome. This is flatMap for promises.
+     * <p>
+     * Nothing blocks and no thread is added. A failure or timeout of either step rejects the returned promise,
+     * and the mapper is not called if this promise fails.
+     * An invokable promise returned by the mapper is invoked.
+     *
+     * @param mapper starts the next call
+     * @param <U>    type of the next call
+     * @return promise of the outcome of the next call
+     */
+    default <U> Promise<U> thenCompose(Function<? super T, ? extends Promise<U>> mapper) {
+        return PromiseUtil.composePromise(this, mapper, Promises.promise());
+    }
+
+    /**
+     * Creates a new primitive promise that completes with the mapped value.
+     *
+     * @param mapper mapper function
+     * @return an int promise that uses mapper function to map this promise's result
+     */
+    default IntPromise thenMapToInt(ToIntFunction<? super T> mapper) {
+        final IntPromise mapped = Promises.intPromise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsInt(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    /**
+     * Creates a new primitive promise that completes with the mapped value.
+     *
+     * @param mapper mapper function
+     * @return a long promise that uses mapper function to map this promise's result
+     */
+    default LongPromise thenMapToLong(ToLongFunction<? super T> mapper) {
+        final LongPromise mapped = Promises.longPromise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsLong(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    /**
+     * Creates a new primitive promise that completes with the mapped value.
+     *
+     * @param mapper mapper function
+     * @return a double promise that uses mapper function to map this promise's result
+     */
+    default DoublePromise thenMapToDouble(ToDoubleFunction<? super T> mapper) {
+        final DoublePromise mapped = Promises.doublePromise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsDouble(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
     /**
      * If a result is sent, and there is an error, then handle handle the error.
      *
@@ -143,4 +143,16 @@ public interface PromiseHandle<T> {
         return (Promise<T>) this;
     }
 
+    /**
+     * Gives up on the call: the promise fails with a
+     * {@link io.advantageous.reakt.exception.PromiseCancelledException}, and the cancel hooks the producer
+     * registered run so it can stop the work.
+     * Promises that cannot be cancelled return false.
+     *
+     * @return true if this call cancelled the promise, false if it had already completed
+     */
+    default boolean cancel() {
+        return false;
+    }
+
 }
@@ -19,6 +19,10 @@
 package io.advantageous.reakt.promise;
 
 import io.advantageous.reakt.CallbackHandle;
+import io.advantageous.reakt.Function3;
+import io.advantageous.reakt.Function4;
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.Stream;
 import io.advantageous.reakt.promise.impl.*;
 
 import java.time.Duration;
@@ -26,6 +30,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
 /**
@@ -68,6 +73,163 @@ public interface Promises {
         return all(promises.toArray(new Promise[promises.size()]));
     }
 
+    /**
+     * All promises must complete, and the values of all of them are collected.
+     * Fails with the first child that fails.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the values, in the order of the promises
+     */
+    @SafeVarargs
+    static <T> Promise<List<T>> allValues(final Promise<T>... promises) {
+        return new CollectingPromise<>(false, CollectingPromise::list, promises);
+    }
+
+    /**
+     * All promises must complete, and the values of all of them are collected.
+     * Fails with the first child that fails.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the values, in the order of the promises
+     */
+    static <T> Promise<List<T>> allValues(final List<Promise<T>> promises) {
+        return new CollectingPromise<>(false, CollectingPromise::list, promises.toArray(new Promise<?>[promises.size()]));
+    }
+
+    /**
+     * All promises must complete, successfully or not, and the result of each is collected.
+     * The returned promise does not fail because a child failed.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the results, in the order of the promises
+     */
+    @SafeVarargs
+    static <T> Promise<List<Result<T>>> allSettled(final Promise<T>... promises) {
+        return new CollectingPromise<>(true, CollectingPromise::list, promises);
+    }
+
+    /**
+     * All promises must complete, successfully or not, and the result of each is collected.
+     * The returned promise does not fail because a child failed.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the results, in the order of the promises
+     */
+    static <T> Promise<List<Result<T>>> allSettled(final List<Promise<T>> promises) {
+        return new CollectingPromise<>(true, CollectingPromise::list, promises.toArray(new Promise<?>[promises.size()]));
+    }
+
+    /**
+     * Feeds the result of each promise to the stream as soon as it comes back, so results can be handled
+     * before the slowest promise returns. Results arrive in completion order, one at a time, and the result of
+     * the last promise is marked complete. Failed promises are sent as failed results and do not end the stream.
+     * Use {@link io.advantageous.reakt.Observer#stream(io.advantageous.reakt.Observer)} to feed an observer.
+     *
+     * @param promises promises
+     * @param stream   stream fed with the results
+     * @param <T>      types of promise
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> void asCompleted(final List<Promise<T>> promises, final Stream<T> stream) {
+        PromiseUtil.asCompleted(promises.toArray(new Promise[promises.size()]), stream);
+    }
+
+    /**
+     * Folds the values of the promises as they come back, in completion order.
+     * The accumulator is never called from two threads at once.
+     * Fails with the first promise that fails.
+     *
+     * @param promises    promises
+     * @param identity    starting value
+     * @param accumulator folds a value in
+     * @param <T>         types of promise
+     * @param <R>         type of the folded value
+     * @return promise of the folded value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T, R> Promise<R> reduce(final List<Promise<T>> promises,
+                                    final R identity,
+                                    final BiFunction<R, ? super T, R> accumulator) {
+        final Promise<R> promise = promise();
+        PromiseUtil.reduce(promise, promises.toArray(new Promise[promises.size()]), identity, accumulator);
+        return promise;
+    }
+
+    /**
+     * Both promises must complete, and their values are combined.
+     * Fails with the first child that fails.
+     *
+     * @param first    first promise
+     * @param second   second promise
+     * @param combiner combines the values
+     * @param <A>      type of first promise
+     * @param <B>      type of second promise
+     * @param <R>      type of combined value
+     * @return promise of the combined value
+     */
+    @SuppressWarnings("unchecked")
+    static <A, B, R> Promise<R> zip(final Promise<A> first,
+                                    final Promise<B> second,
+                                    final BiFunction<? super A, ? super B, ? extends R> combiner) {
+        return new CollectingPromise<>(false, values -> combiner.apply((A) values[0], (B) values[1]),
+                first, second);
+    }
+
+    /**
+     * All three promises must complete, and their values are combined.
+     * Fails with the first child that fails.
+     *
+     * @param first    first promise
+     * @param second   second promise
+     * @param third    third promise
+     * @param combiner combines the values
+     * @param <A>      type of first promise
+     * @param <B>      type of second promise
+     * @param <C>      type of third promise
+     * @param <R>      type of combined value
+     * @return promise of the combined value
+     */
+    @SuppressWarnings("unchecked")
+    static <A, B, C, R> Promise<R> zip(final Promise<A> first,
+                                       final Promise<B> second,
+                                       final Promise<C> third,
+                                       final Function3<? super A, ? super B, ? super C, ? extends R> combiner) {
+        return new CollectingPromise<>(false, values -> combiner.apply((A) values[0], (B) values[1], (C) values[2]),
+                first, second, third);
+    }
+
+    /**
+     * All four promises must complete, and their values are combined.
+     * Fails with the first child that fails.
+     *
+     * @param first    first promise
+     * @param second   second promise
+     * @param third    third promise
+     * @param fourth   fourth promise
+     * @param combiner combines the values
+     * @param <A>      type of first promise
+     * @param <B>      type of second promise
+     * @param <C>      type of third promise
+     * @param <D>      type of fourth promise
+     * @param <R>      type of combined value
+     * @return promise of the combined value
+     */
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, R> Promise<R> zip(final Promise<A> first,
+                                          final Promise<B> second,
+                                          final Promise<C> third,
+                                          final Promise<D> fourth,
+                                          final Function4<? super A, ? super B, ? super C, ? super D,
+                                                  ? extends R> combiner) {
+        return new CollectingPromise<>(false,
+                values -> combiner.apply((A) values[0], (B) values[1], (C) values[2], (D) values[3]),
+                first, second, third, fourth);
+    }
+
     /**
      * Any promises must complete.
      *
@@ -241,6 +403,144 @@ public interface Promises {
         return anyReplay(timeout, System.currentTimeMillis(), promises.toArray(new Promise[promises.size()]));
     }
 
+    /**
+     * Races the promises: comes back with the value of the first one that succeeds.
+     * Failures are tolerated until every promise has failed, then fails with the last failure.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first successful value
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <T> Promise<T> firstSuccess(final Promise<T>... promises) {
+        return new FirstSuccessPromise<>(promises);
+    }
+
+    /**
+     * Races the promises: comes back with the value of the first one that succeeds.
+     * Failures are tolerated until every promise has failed, then fails with the last failure.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first successful value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Promise<T> firstSuccess(final List<Promise<T>> promises) {
+        return new FirstSuccessPromise<>(promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Races the promises: comes back with the value of the first one that succeeds.
+     *
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first successful value that is blocking.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Promise<T> firstSuccessBlocking(final List<Promise<T>> promises) {
+        return new FirstSuccessBlockingPromise<>(promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Races the promises: comes back with the value of the first one that succeeds.
+     *
+     * @param timeout  timeout
+     * @param time     time
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return returns replay promise so promise can be replayed in caller's thread.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> ReplayPromise<T> firstSuccessReplay(final Duration timeout, final long time,
+                                                   final List<Promise<T>> promises) {
+        return new FirstSuccessReplayPromise<>(timeout, time, promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Races the promises: comes back with the value of the first one that succeeds.
+     *
+     * @param timeout  timeout
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return returns replay promise so promise can be replayed in caller's thread.
+     */
+    static <T> ReplayPromise<T> firstSuccessReplay(final Duration timeout, final List<Promise<T>> promises) {
+        return firstSuccessReplay(timeout, System.currentTimeMillis(), promises);
+    }
+
+    /**
+     * Comes back once {@code needed} of the promises succeed, with their values in the order they came back.
+     * Fails as soon as so many promises failed that the quorum cannot be reached.
+     *
+     * @param needed   how many promises have to succeed, between 1 and the number of promises
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first {@code needed} values
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    static <T> Promise<List<T>> quorum(final int needed, final Promise<T>... promises) {
+        return new QuorumPromise<>(needed, promises);
+    }
+
+    /**
+     * Comes back once {@code needed} of the promises succeed, with their values in the order they came back.
+     * Fails as soon as so many promises failed that the quorum cannot be reached.
+     *
+     * @param needed   how many promises have to succeed, between 1 and the number of promises
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first {@code needed} values
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Promise<List<T>> quorum(final int needed, final List<Promise<T>> promises) {
+        return new QuorumPromise<>(needed, promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Comes back once {@code needed} of the promises succeed.
+     *
+     * @param needed   how many promises have to succeed, between 1 and the number of promises
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return promise of the first {@code needed} values that is blocking.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> Promise<List<T>> quorumBlocking(final int needed, final List<Promise<T>> promises) {
+        return new QuorumBlockingPromise<>(needed, promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Comes back once {@code needed} of the promises succeed.
+     *
+     * @param timeout  timeout
+     * @param time     time
+     * @param needed   how many promises have to succeed, between 1 and the number of promises
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return returns replay promise so promise can be replayed in caller's thread.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> ReplayPromise<List<T>> quorumReplay(final Duration timeout, final long time, final int needed,
+                                                   final List<Promise<T>> promises) {
+        return new QuorumReplayPromise<>(timeout, time, needed, promises.toArray(new Promise[promises.size()]));
+    }
+
+    /**
+     * Comes back once {@code needed} of the promises succeed.
+     *
+     * @param timeout  timeout
+     * @param needed   how many promises have to succeed, between 1 and the number of promises
+     * @param promises promises
+     * @param <T>      types of promise
+     * @return returns replay promise so promise can be replayed in caller's thread.
+     */
+    static <T> ReplayPromise<List<T>> quorumReplay(final Duration timeout, final int needed,
+                                                   final List<Promise<T>> promises) {
+        return quorumReplay(timeout, System.currentTimeMillis(), needed, promises);
+    }
+
     /**
      * Allows the results of a promise to be replayed on the callers thread.
      *
@@ -254,6 +554,20 @@ public interface Promises {
         return new ReplayPromiseImpl<>(timeout, time);
     }
 
+    /**
+     * Replay promise confined to the calling thread, without atomics on the replay path.
+     * Only the result can be sent from another thread. Run with {@code -ea} to check confinement.
+     *
+     * @param timeout timeout
+     * @param time    time
+     * @param <T>     type of result
+     * @return new confined replay promise
+     */
+    static <T> ReplayPromise<T> confinedReplayPromise(final Duration timeout,
+                                                      final long time) {
+        return new ConfinedReplayPromise<>(timeout, time);
+    }
+
     /**
      * Allows the results of a promise to be replayed on the callers thread.
      *
@@ -366,6 +680,42 @@ public interface Promises {
         return new BasePromise<>();
     }
 
+    /**
+     * Int promise that does not box: unlike {@link #promiseInt()}, replying does not allocate.
+     *
+     * @return new int promise
+     */
+    static IntPromise intPromise() {
+        return new IntPromiseImpl();
+    }
+
+    /**
+     * Long promise that does not box: unlike {@link #promiseLong()}, replying does not allocate.
+     *
+     * @return new long promise
+     */
+    static LongPromise longPromise() {
+        return new LongPromiseImpl();
+    }
+
+    /**
+     * Double promise that does not box: unlike {@link #promiseDouble()}, replying does not allocate.
+     *
+     * @return new double promise
+     */
+    static DoublePromise doublePromise() {
+        return new DoublePromiseImpl();
+    }
+
+    /**
+     * Boolean promise that does not allocate a result: unlike {@link #promiseBoolean()}, replying does not allocate.
+     *
+     * @return new boolean promise
+     */
+    static BooleanPromise booleanPromise() {
+        return new BooleanPromiseImpl();
+    }
+
 
     /**
      * Generic promise.
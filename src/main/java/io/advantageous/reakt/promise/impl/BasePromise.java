@@ -28,29 +28,73 @@ import io.advantageous.reakt.reactor.Reactor;
 import java.time.Duration;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-public class BasePromise<T> implements Promise<T> {
+/**
+ * Base promise. Continuations live in a lock-free {@link ContinuationStack}.
+ * <p>
+ * The layout is kept small because applications hold very many promises in flight: the result, the head of the
+ * continuation stack and a flags word are inline fields, with no satellite objects until a handler is added.
+ * <p>
+ * There is one then, one thenExpect and one catchError handler per promise: when the promise completes, the
+ * latest registration of each wins, replacing the previous one. Complete listeners all run, in the order they were
+ * added.
+ * A continuation registered after the promise has completed runs right away on the registering thread.
+ * <p>
+ * Completing a promise from inside a continuation does not nest: its continuations run through the
+ * {@link Trampoline} once the current ones return, so long synchronous chains do not grow the stack.
+ * <p>
+ * Cancel hooks run, before the other handlers, when the promise is cancelled or times out.
+ * <p>
+ * {@code thenMap} returns a {@link MappedPromise}; consecutive {@code thenMap} stages share one listener.
+ *
+ * @param <T> value of result.
+ */
+public class BasePromise<T> extends ContinuationStack implements Promise<T> {
+
 
 
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BasePromise, Result> RESULT =
+            AtomicReferenceFieldUpdater.newUpdater(BasePromise.class, Result.class, "result");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<BasePromise> FLAGS =
+            AtomicIntegerFieldUpdater.newUpdater(BasePromise.class, "flags");
 
-    protected final AtomicReference<Result<T>> result = new AtomicReference<>();
-    protected Expected<Consumer<T>> thenConsumer = Expected.empty();
-    protected Expected<Consumer<Expected<T>>> thenExpectedConsumer = Expected.empty();
-    protected Expected<Consumer<Throwable>> catchConsumer = Expected.empty();
-    protected Expected<List<Consumer<Promise<T>>>> completeListeners = Expected.empty();
-    private boolean safe;
+    /**
+     * Flag set once a safe then handler has been registered.
+     */
+    protected static final int SAFE = 1;
+    /**
+     * Flag subclasses use to record that the result has been replayed.
+     */
+    protected static final int REPLAYED = 2;
+    /**
+     * Flag set when the promise was cancelled or timed out itself, as opposed to failed with a cancellation or
+     * timeout passed on from another promise. Only an abandoned promise runs its cancel hooks.
+     */
+    protected static final int ABANDONED = 4;
 
+    protected volatile Result<T> result;
+    private volatile int flags;
+    /**
+     * Catch handler in force when the promise completed, for safe then handlers registered afterwards.
+     */
+    private volatile Consumer<Throwable> completedCatchConsumer;
+
+    @SuppressWarnings("unchecked")
     public static <T> Promise<T> provideFinalPromise(Promise<T> promise) {
         if (promise instanceof BasePromise) {
             BasePromise<T> basePromise = ((BasePromise<T>) promise);
-            return new FinalPromise<>(basePromise.thenConsumer,
-                    basePromise.catchConsumer,
-                    basePromise.thenExpectedConsumer,
-                    basePromise.completeListeners, true);
+            final List<Consumer<Promise<T>>> completeListeners =
+                    (List<Consumer<Promise<T>>>) (List) basePromise.continuations(COMPLETE);
+            return new FinalPromise<>(Expected.ofNullable((Consumer<T>) basePromise.latestContinuation(THEN)),
+                    Expected.ofNullable((Consumer<Throwable>) basePromise.latestContinuation(CATCH)),
+                    Expected.ofNullable((Consumer<Expected<T>>) basePromise.latestContinuation(THEN_EXPECT)),
+                    completeListeners.isEmpty() ? Expected.empty() : Expected.of(completeListeners), true);
         } else {
             throw new IllegalStateException("Operation not supported use FinalPromise directly");
         }
@@ -58,15 +102,15 @@ public class BasePromise<T> implements Promise<T> {
 
     @Override
     public Promise<T> thenSafeExpect(Consumer<Expected<T>> consumer) {
-        safe = true;
-        thenExpectedConsumer = Expected.of(consumer);
+        setFlag(SAFE);
+        register(THEN_EXPECT, consumer);
         return this;
     }
 
     @Override
     public Promise<T> thenSafe(Consumer<T> consumer) {
-        safe = true;
-        thenConsumer = Expected.of(consumer);
+        setFlag(SAFE);
+        register(THEN, consumer);
         return this;
     }
 
@@ -75,36 +119,68 @@ public class BasePromise<T> implements Promise<T> {
         return true;
     }
 
-    public synchronized Promise<T> then(final Consumer<T> consumer) {
-        thenConsumer = Expected.of(consumer);
+    public Promise<T> then(final Consumer<T> consumer) {
+        register(THEN, consumer);
         return this;
     }
 
     @Override
     public Promise<T> whenComplete(final Consumer<Promise<T>> doneListener) {
-        if (completeListeners.isEmpty()) {
-            completeListeners = Expected.of(new CopyOnWriteArrayList<>());
-        }
-        completeListeners.get().add(doneListener);
+        register(COMPLETE, doneListener);
         return this;
     }
 
     @Override
-    public synchronized Promise<T> thenExpect(Consumer<Expected<T>> consumer) {
-        thenExpectedConsumer = Expected.of(consumer);
+    public Promise<T> thenExpect(Consumer<Expected<T>> consumer) {
+        register(THEN_EXPECT, consumer);
         return this;
     }
 
     @Override
     public Promise<T> catchError(Consumer<Throwable> consumer) {
-        catchConsumer = Expected.of(consumer);
+        register(CATCH, consumer);
         return this;
     }
 
+    /**
+     * Adds a continuation, or runs it now if the promise has already completed.
+     */
+    @SuppressWarnings("unchecked")
+    private void register(final int kind, final Object handler) {
+        observe();
+        if (kind <= CATCH ? setContinuation(kind, handler) : pushContinuation(kind, handler)) {
+            return;
+        }
+        final Result<T> result = this.result;
+        switch (kind) {
+            case THEN:
+                if (result.success()) {
+                    runThen((Consumer<T>) handler, null, result, completedCatchConsumer);
+                }
+                break;
+            case THEN_EXPECT:
+                if (result.success()) {
+                    runThen(null, (Consumer<Expected<T>>) handler, result, completedCatchConsumer);
+                }
+                break;
+            case CATCH:
+                if (result.failure()) {
+                    ((Consumer<Throwable>) handler).accept(result.cause());
+                }
+                break;
+            case CANCEL:
+                if (flag(ABANDONED)) {
+                    ((Runnable) handler).run();
+                }
+                break;
+            default:
+                ((Consumer<Promise<T>>) handler).accept(self());
+        }
+    }
+
     @Override
     public Promise<T> invokeWithReactor(final Reactor reactor) {
-        final BasePromise<T> reactorPromise = (BasePromise<T>)reactor.promise();
-        copyPromiseFieldsToReactorPromise(reactorPromise);
+        copyPromiseFieldsToReactorPromise(reactor.promise());
         return this;
     }
 
@@ -112,8 +188,7 @@ public class BasePromise<T> implements Promise<T> {
 
     @Override
     public Promise<T> invokeWithReactor(final Reactor reactor, Duration timeout) {
-        final BasePromise<T> reactorPromise = (BasePromise<T>)reactor.promise(timeout);
-        copyPromiseFieldsToReactorPromise(reactorPromise);
+        copyPromiseFieldsToReactorPromise(reactor.promise(timeout));
         return this;
     }
 
@@ -123,12 +198,13 @@ public class BasePromise<T> implements Promise<T> {
         if (!complete()) {
             throw new NoSuchElementException("No value present, result not returned.");
         }
-        return result.get().success();
+        return result.success();
     }
 
     @Override
     public boolean complete() {
-        return result.get() != null;
+        observe();
+        return result != null;
     }
 
     @Override
@@ -137,7 +213,7 @@ public class BasePromise<T> implements Promise<T> {
         if (!complete()) {
             throw new NoSuchElementException("No value present, result not returned.");
         }
-        return result.get().failure();
+        return result.failure();
     }
 
     @Override
@@ -146,7 +222,7 @@ public class BasePromise<T> implements Promise<T> {
         if (!complete()) {
             throw new NoSuchElementException("No value present, result not returned.");
         }
-        return result.get().cause();
+        return result.cause();
     }
 
     /**
@@ -161,7 +237,7 @@ public class BasePromise<T> implements Promise<T> {
         if (failure()) {
             throw new IllegalStateException(cause());
         }
-        return result.get().expect();
+        return result.expect();
     }
 
     /**
@@ -171,7 +247,8 @@ public class BasePromise<T> implements Promise<T> {
      * @return raw value associated with the result.
      */
     public T get() {
-        return PromiseUtil.doGet(result, this);
+        observe();
+        return PromiseUtil.doGet(result);
     }
 
     @Override
@@ -179,60 +256,300 @@ public class BasePromise<T> implements Promise<T> {
         if (!complete()) {
             throw new NoSuchElementException("No value present, result not returned.");
         }
-        return success() ? result.get().get() : other;
+        return success() ? result.get() : other;
+    }
+
+    /**
+     * Completes the promise with a cancellation, which runs the cancel hooks with the other handlers.
+     * A replay promise runs them when it is replayed.
+     */
+    @Override
+    public boolean cancel() {
+        if (!abandon(PromiseUtil.cancelledResult())) {
+            return false;
+        }
+        resultSet();
+        return true;
+    }
+
+    @Override
+    public boolean cancelled() {
+        return flag(ABANDONED);
+    }
+
+    @Override
+    public void onCancel(final Runnable hook) {
+        register(CANCEL, hook);
     }
 
     @Override
     public void onResult(final Result<T> result) {
-        if (this.result.compareAndSet(null, result)) {
-            doOnResult(result);
+        if (casResult(result)) {
+            resultSet();
         }
     }
 
+    /**
+     * Called once this promise's result has been set, by {@link #onResult(Result)} or {@link #cancel()}.
+     * Dispatches the continuations.
+     */
+    protected void resultSet() {
+        Trampoline.dispatch(this);
+    }
+
+    @Override
+    void runContinuations() {
+        doOnResult(result);
+    }
+
+    /**
+     * A then handler or complete listener that failed is reported to the catch handler, as a safe then would be.
+     */
+    @Override
+    void continuationFailed(final RuntimeException ex) {
+        final Consumer<Throwable> catchConsumer = completedCatchConsumer;
+        if (catchConsumer != null && result.success()) {
+            try {
+                catchConsumer.accept(new ThenHandlerException(ex));
+                return;
+            } catch (RuntimeException catchEx) {
+                ex.addSuppressed(catchEx);
+            }
+        }
+        super.continuationFailed(ex);
+    }
+
+    /**
+     * Publishes the catch handler before the continuations close, so a safe then handler registered late sees it.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    void closing(final Object handler) {
+        completedCatchConsumer = (Consumer<Throwable>) handler;
+    }
+
+    @SuppressWarnings("unchecked")
     protected void doOnResult(final Result<T> result) {
 
+        final Node chain = closeContinuations(CATCH);
+        if (flag(ABANDONED)) {
+            for (Node node = chain; node != null; node = node.next()) {
+                if (node.kind() == CANCEL) {
+                    ((Runnable) node.handler()).run();
+                }
+            }
+        }
+        Consumer<T> thenConsumer = null;
+        Consumer<Expected<T>> thenExpectedConsumer = null;
+        for (Node node = chain; node != null; node = node.next()) {
+            if (node.kind() == THEN || node.kind() == THEN_EXPECT) {
+                final Object handler = node.take();
+                if (handler == null) {
+                    continue;
+                }
+                if (node.kind() == THEN) {
+                    thenConsumer = (Consumer<T>) handler;
+                } else {
+                    thenExpectedConsumer = (Consumer<Expected<T>>) handler;
+                }
+            }
+        }
+        final Consumer<Throwable> catchConsumer = completedCatchConsumer;
 
         if (result.success()) {
-            if (!safe) {
-                thenConsumer.ifPresent(consumer -> consumer.accept(result.get()));
-                thenExpectedConsumer.ifPresent(valueConsumer -> valueConsumer.accept(result.expect()));
-            } else {
-                try {
-                    thenConsumer.ifPresent(consumer -> consumer.accept(result.get()));
-                    thenExpectedConsumer.ifPresent(valueConsumer -> valueConsumer.accept(result.expect()));
-                } catch (Exception ex) {
-                    catchConsumer.ifPresent(catchConsumer -> catchConsumer.accept(
-                            new ThenHandlerException(ex)));
-                }
+            runThen(thenConsumer, thenExpectedConsumer, result, catchConsumer);
+        } else if (catchConsumer != null) {
+            catchConsumer.accept(result.cause());
+        }
+
+        for (Node node = chain; node != null; node = node.next()) {
+            if (node.kind() == COMPLETE) {
+                ((Consumer<Promise<T>>) node.handler()).accept(self());
+            }
+        }
+    }
+
+    private void runThen(final Consumer<T> thenConsumer,
+                         final Consumer<Expected<T>> thenExpectedConsumer,
+                         final Result<T> result,
+                         final Consumer<Throwable> catchConsumer) {
+        if (!flag(SAFE)) {
+            if (thenConsumer != null) {
+                thenConsumer.accept(result.get());
+            }
+            if (thenExpectedConsumer != null) {
+                thenExpectedConsumer.accept(result.expect());
             }
         } else {
-            catchConsumer.ifPresent(catchConsumer -> catchConsumer.accept(result.cause()));
+            try {
+                if (thenConsumer != null) {
+                    thenConsumer.accept(result.get());
+                }
+                if (thenExpectedConsumer != null) {
+                    thenExpectedConsumer.accept(result.expect());
+                }
+            } catch (Exception ex) {
+                if (catchConsumer != null) {
+                    catchConsumer.accept(new ThenHandlerException(ex));
+                }
+            }
         }
+    }
 
-        this.completeListeners.ifPresent(runnables ->
-                runnables.forEach(promiseConsumer -> promiseConsumer.accept(this)));
+    /**
+     * @return the promise handed to complete listeners
+     */
+    protected Promise<T> self() {
+        return this;
     }
 
+    /**
+     * Drops all handlers so the promise can be reused.
+     */
+    protected void clearHandlers() {
+        resetContinuations();
+        completedCatchConsumer = null;
+        flags = 0;
+    }
 
-    @Override
-    public <U> Promise<U> thenMap(Function<? super T, ? extends U> mapper) {
-        return PromiseUtil.mapPromise(this, mapper);
+    /**
+     * Sets the result if there is none yet.
+     *
+     * @param result result
+     * @return true if this call set it
+     */
+    protected final boolean casResult(final Result<T> result) {
+        return RESULT.compareAndSet(this, null, result);
     }
 
-    private void copyPromiseFieldsToReactorPromise(BasePromise<T> reactorPromise) {
-        reactorPromise.catchConsumer = this.catchConsumer;
-        reactorPromise.thenConsumer = this.thenConsumer;
-        reactorPromise.thenExpectedConsumer = this.thenExpectedConsumer;
-        reactorPromise.safe = this.safe;
-        this.thenExpectedConsumer = Expected.empty();
-        this.thenConsumer = Expected.empty();
-        this.catchConsumer = Expected.empty();
+    /**
+     * Sets the result of this promise's own cancellation or timeout if there is none yet, and marks the promise
+     * {@link #ABANDONED} before anything runs its handlers.
+     *
+     * @param result cancelled or timed out result
+     * @return true if this call set it
+     */
+    protected final boolean abandon(final Result<T> result) {
+        if (!casResult(result)) {
+            return false;
+        }
+        addFlags(ABANDONED);
+        return true;
+    }
 
+    /**
+     * @param flag flag
+     * @return true if the flag is set
+     */
+    protected final boolean flag(final int flag) {
+        return (flags & flag) != 0;
+    }
 
-        completeListeners.ifPresent(consumers ->
-                consumers.forEach(reactorPromise::whenComplete));
+    /**
+     * Sets a flag.
+     *
+     * @param flag flag
+     * @return true if this call set it, false if it was already set
+     */
+    protected final boolean setFlag(final int flag) {
+        return setFlagUnless(flag, 0);
+    }
 
-        this.thenPromise(reactorPromise);
+    /**
+     * Sets a flag unless it, or any of the other given flags, is already set.
+     *
+     * @param flag   flag
+     * @param unless flags that stop the flag from being set
+     * @return true if this call set it
+     */
+    protected final boolean setFlagUnless(final int flag, final int unless) {
+        int current;
+        do {
+            current = flags;
+            if ((current & (flag | unless)) != 0) {
+                return false;
+            }
+        } while (!FLAGS.compareAndSet(this, current, current | flag));
+        return true;
+    }
+
+    /**
+     * Sets flags.
+     *
+     * @param flags flags
+     * @return the flags before this call
+     */
+    protected final int addFlags(final int flags) {
+        return FLAGS.getAndUpdate(this, current -> current | flags);
+    }
+
+    /**
+     * Called when a handler is added or the result is read.
+     * Lets a promise that is computed from another one hand over a value it computed before anyone looked at it.
+     */
+    void observe() {
+    }
+
+
+    @Override
+    public <U> Promise<U> thenMap(Function<? super T, ? extends U> mapper) {
+        return new MappedPromise<>(this, null, mapper);
+    }
+
+    private void copyPromiseFieldsToReactorPromise(final Promise<T> promise) {
+        /* A pooled reactor promise is handed out as a generation stamped ref; the handlers go on the promise. */
+        final BasePromise<T> reactorPromise = promise instanceof PooledReplayPromise.Ref ?
+                ((PooledReplayPromise.Ref<T>) promise).promise() :
+                promise instanceof BasePromise ? (BasePromise<T>) promise : null;
+        final boolean safe = flag(SAFE);
+        if (reactorPromise != null && safe) {
+            reactorPromise.setFlag(SAFE);
+        }
+        for (Node node = drainContinuations(); node != null; node = node.next()) {
+            final Object handler = node.take();
+            if (handler == null) {
+                continue;
+            }
+            if (reactorPromise != null) {
+                reactorPromise.register(node.kind(), handler);
+            } else {
+                moveHandlerTo(promise, node.kind(), handler, safe);
+            }
+        }
+
+        this.thenPromise(promise);
         this.invoke();
     }
+
+    /**
+     * Adds a handler to a reactor promise that is not a base promise, such as a confined one, through its API.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void moveHandlerTo(final Promise<T> promise, final int kind, final Object handler,
+                                          final boolean safe) {
+        switch (kind) {
+            case THEN:
+                if (safe) {
+                    promise.thenSafe((Consumer<T>) handler);
+                } else {
+                    promise.then((Consumer<T>) handler);
+                }
+                break;
+            case THEN_EXPECT:
+                if (safe) {
+                    promise.thenSafeExpect((Consumer<Expected<T>>) handler);
+                } else {
+                    promise.thenExpect((Consumer<Expected<T>>) handler);
+                }
+                break;
+            case CATCH:
+                promise.catchError((Consumer<Throwable>) handler);
+                break;
+            case CANCEL:
+                promise.onCancel((Runnable) handler);
+                break;
+            default:
+                promise.whenComplete((Consumer<Promise<T>>) handler);
+        }
+    }
 }
@@ -40,6 +40,7 @@ public class BlockingPromise<T> extends BasePromise<T> {
 
     private final CountDownLatch countDownLatch = new CountDownLatch(1);
     private final Expected<Duration> duration;
+    private volatile Thread completingThread;
 
     public BlockingPromise() {
         this.duration = Expected.empty();
@@ -50,10 +51,27 @@ public class BlockingPromise<T> extends BasePromise<T> {
         this.duration = Expected.of(duration);
     }
 
+    /**
+     * Records the completing thread before the handlers are dispatched. If the promise was completed from inside
+     * another promise's handler, its own handlers are queued behind that one, so the completing thread must be
+     * able to read the result without waiting for them.
+     */
     @Override
-    public void onResult(Result<T> result) {
-        super.onResult(result);
-        countDownLatch.countDown();
+    protected void resultSet() {
+        completingThread = Thread.currentThread();
+        super.resultSet();
+    }
+
+    /**
+     * Other threads are released once the handlers have run.
+     */
+    @Override
+    void runContinuations() {
+        try {
+            super.runContinuations();
+        } finally {
+            countDownLatch.countDown();
+        }
     }
 
     @Override
@@ -102,6 +120,9 @@ public class BlockingPromise<T> extends BasePromise<T> {
 
 
     private void await() {
+        if (completingThread == Thread.currentThread()) {
+            return;
+        }
         duration.ifPresent(duration1 -> {
             doAwait(() -> {
                 countDownLatch.await(duration1.toMillis(), MILLISECONDS);
@@ -121,7 +142,7 @@ public class BlockingPromise<T> extends BasePromise<T> {
         this.whenComplete(p -> {
             final BlockingPromise<T> promise = (BlockingPromise) p;
             if (promise._success()) {
-                final T t = promise.result.get().get();
+                final T t = promise.result.get();
                 final U mapped = mapper.apply(t);
                 mappedPromise.reply(mapped);
             } else {
@@ -131,4 +152,9 @@ public class BlockingPromise<T> extends BasePromise<T> {
         return mappedPromise;
     }
 
+    @Override
+    public <U> Promise<U> thenCompose(Function<? super T, ? extends Promise<U>> mapper) {
+        return PromiseUtil.composePromise(this, mapper, Promises.blockingPromise());
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.BooleanConsumer;
+import io.advantageous.reakt.promise.BooleanPromise;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link BooleanPromise} that keeps its value unboxed.
+ *
+ * @author Rick Hightower
+ */
+public class BooleanPromiseImpl extends PrimitivePromise<BooleanPromise> implements BooleanPromise {
+
+    public BooleanPromiseImpl() {
+        this(null);
+    }
+
+    /**
+     * @param replayExecutor runs the handlers after completion, null to run them on the completing thread
+     */
+    public BooleanPromiseImpl(final Executor replayExecutor) {
+        super(replayExecutor);
+    }
+
+    @Override
+    void acceptThen(final Object handler, final long bits) {
+        ((BooleanConsumer) handler).accept(bits != 0);
+    }
+
+    @Override
+    public void reply(final boolean value) {
+        replyBits(value ? 1 : 0);
+    }
+
+    @Override
+    public BooleanPromise then(final BooleanConsumer consumer) {
+        register(THEN, consumer);
+        return this;
+    }
+
+    @Override
+    public BooleanPromise catchError(final Consumer<Throwable> consumer) {
+        register(CATCH, consumer);
+        return this;
+    }
+
+    @Override
+    public BooleanPromise whenComplete(final Consumer<BooleanPromise> doneListener) {
+        register(COMPLETE, doneListener);
+        return this;
+    }
+
+    @Override
+    public boolean get() {
+        final long bits = bits();
+        return bits != 0;
+    }
+
+    @Override
+    public boolean orElse(final boolean other) {
+        return success() ? get() : other;
+    }
+
+    @Override
+    public <U> Promise<U> thenMapToObj(final Function<? super Boolean, ? extends U> mapper) {
+        final Promise<U> mapped = Promises.promise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.apply(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public Promise<Boolean> boxed() {
+        return thenMapToObj(Boolean::valueOf);
+    }
+}
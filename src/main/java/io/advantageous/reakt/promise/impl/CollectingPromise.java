@@ -0,0 +1,171 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Invokable;
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Promise that waits for all of its child promises and completes with a value built from all of their results.
+ * <p>
+ * Each child writes its value, or its whole {@link Result} when collecting settled results, into the slot
+ * for its position in a presized array, and counts down a single counter; the child that brings the count
+ * to zero builds the value. The only allocation per child is the listener that knows its position.
+ * <p>
+ * Unless it collects settled results, the promise fails with the result of the first child that fails,
+ * and the other children are cancelled. Cancelling the promise cancels the children.
+ *
+ * @param <R> type of the value built from the child results
+ * @author Rick Hightower
+ */
+public class CollectingPromise<R> extends BasePromise<R> implements Promise<R>, Invokable {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CollectingPromise> REMAINING =
+            AtomicIntegerFieldUpdater.newUpdater(CollectingPromise.class, "remaining");
+
+    private final Promise<?>[] promises;
+    private final Object[] slots;
+    private final boolean settled;
+    private final Function<Object[], ? extends R> finisher;
+    private volatile int remaining;
+    private boolean invoked;
+
+    /**
+     * @param settled  true to collect the result of every child, even failed ones, false to collect the values
+     *                 and fail with the first failure
+     * @param finisher builds the value from the slots, indexed by child position, once every child is done
+     * @param promises child promises
+     */
+    @SuppressWarnings("unchecked")
+    public CollectingPromise(final boolean settled,
+                             final Function<Object[], ? extends R> finisher,
+                             final Promise<?>... promises) {
+        this.promises = promises;
+        this.slots = new Object[promises.length];
+        this.settled = settled;
+        this.finisher = finisher;
+        this.remaining = promises.length;
+        if (promises.length == 0) {
+            finish();
+            return;
+        }
+        for (int index = 0; index < promises.length; index++) {
+            ((Promise<Object>) promises[index]).whenComplete(new Slot(this, index));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void childDone(final int index, final Result<?> result) {
+        if (!settled && result.failure()) {
+            if (casResult((Result<R>) result)) {
+                PromiseUtil.cancelAll(promises);
+                Trampoline.dispatch(this);
+            }
+            return;
+        }
+        slots[index] = settled ? result : result.get();
+        if (REMAINING.decrementAndGet(this) == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        if (complete()) {
+            return;
+        }
+        final R value;
+        try {
+            value = finisher.apply(slots);
+        } catch (Exception ex) {
+            reject(ex);
+            return;
+        }
+        reply(value);
+    }
+
+    /**
+     * Finisher that wraps the slots in a read only list, without copying them.
+     *
+     * @param slots slots
+     * @param <T>   type of element
+     * @return list view of the slots
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> list(final Object[] slots) {
+        return Collections.unmodifiableList(Arrays.asList((T[]) slots));
+    }
+
+    @Override
+    public boolean cancel() {
+        if (!super.cancel()) {
+            return false;
+        }
+        PromiseUtil.cancelAll(promises);
+        return true;
+    }
+
+    @Override
+    public Promise<R> invoke() {
+        if (invoked) {
+            throw new IllegalStateException("Promise can only be invoked once");
+        }
+        invoked = true;
+        for (Promise<?> promise : promises) {
+            if (!promise.isInvokable()) {
+                throw new IllegalStateException("CollectingPromise can only be invoked if all children are invokeable");
+            }
+            promise.invoke();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isInvokable() {
+        return true;
+    }
+
+    /**
+     * Complete listener that knows the position of its child.
+     */
+    private static final class Slot implements Consumer<Promise<Object>> {
+
+        private final CollectingPromise<?> parent;
+        private final int index;
+
+        private Slot(final CollectingPromise<?> parent, final int index) {
+            this.parent = parent;
+            this.index = index;
+        }
+
+        @Override
+        public void accept(final Promise<Object> promise) {
+            parent.childDone(index, PromiseUtil.completedResult(promise));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Complete listener that hands the results of a set of child promises to {@link #deliver(Result, boolean)}
+ * one at a time, in the order the children completed.
+ * <p>
+ * Children can complete on any thread. Each child completes once, so each result claims the next slot of an array
+ * sized to the number of children, and whichever thread finds no delivery in progress drains the slots in order,
+ * so deliveries never overlap and need no lock.
+ * The last delivery is flagged as such.
+ * <p>
+ * After {@link #cancel()}, or after a delivery throws, the remaining results are dropped.
+ *
+ * @param <T> type of the child results
+ * @author Rick Hightower
+ */
+abstract class CompletionQueue<T> implements Consumer<Promise<T>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CompletionQueue> WORK =
+            AtomicIntegerFieldUpdater.newUpdater(CompletionQueue.class, "work");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<CompletionQueue> CLAIMED =
+            AtomicIntegerFieldUpdater.newUpdater(CompletionQueue.class, "claimed");
+
+    private final AtomicReferenceArray<Result<T>> completed;
+    private final int total;
+    /**
+     * Results delivered or dropped so far, only touched by the draining thread.
+     */
+    private int drained;
+    private volatile int claimed;
+    private volatile int work;
+    private volatile boolean cancelled;
+
+    CompletionQueue(final int total) {
+        this.completed = new AtomicReferenceArray<>(total);
+        this.total = total;
+    }
+
+    /**
+     * Listens to the children.
+     *
+     * @param childPromises children
+     */
+    void listen(final Promise<T>[] childPromises) {
+        for (Promise<T> childPromise : childPromises) {
+            childPromise.whenComplete(this);
+        }
+    }
+
+    /**
+     * Called with each result, never from two threads at once.
+     *
+     * @param result result of a child
+     * @param last   true for the result of the last child
+     */
+    abstract void deliver(Result<T> result, boolean last);
+
+    /**
+     * Drops the results that have not been delivered yet.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void accept(final Promise<T> childPromise) {
+        completed.set(CLAIMED.getAndIncrement(this), PromiseUtil.completedResult(childPromise));
+        if (WORK.getAndIncrement(this) != 0) {
+            return;
+        }
+        RuntimeException failure = null;
+        int missed = 1;
+        do {
+            Result<T> result = poll();
+            while (result != null) {
+                if (!cancelled) {
+                    try {
+                        deliver(result, drained == total);
+                    } catch (RuntimeException ex) {
+                        cancelled = true;
+                        failure = ex;
+                    }
+                }
+                result = poll();
+            }
+            missed = WORK.addAndGet(this, -missed);
+        } while (missed != 0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Takes the next result in completion order, only called by the draining thread.
+     *
+     * @return result, or null if the next child has not stored its result yet
+     */
+    private Result<T> poll() {
+        if (drained == total) {
+            return null;
+        }
+        final Result<T> result = completed.get(drained);
+        if (result != null) {
+            completed.lazySet(drained, null);
+            drained++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Expected;
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.exception.PromiseTimeoutException;
+import io.advantageous.reakt.exception.RejectedPromiseException;
+import io.advantageous.reakt.exception.ThenHandlerException;
+import io.advantageous.reakt.impl.ResultImpl;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.ReplayPromise;
+import io.advantageous.reakt.reactor.Reactor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Replay promise for code confined to one thread, normally the reactor thread.
+ * <p>
+ * Handlers, timeout state and replay state are plain fields that only the owner thread (the thread that created
+ * the promise) touches. The only cross thread access is the result hand-off: the completing thread, or the
+ * owner on timeout, publishes the result with one CAS, and the first one wins.
+ * <p>
+ * Run with assertions enabled ({@code -ea}) to check that handlers are registered and the promise is replayed
+ * on the owner thread.
+ *
+ * @param <T> type of result
+ * @author Rick Hightower
+ */
+public class ConfinedReplayPromise<T> implements ReplayPromise<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConfinedReplayPromise, Result> RESULT =
+            AtomicReferenceFieldUpdater.newUpdater(ConfinedReplayPromise.class, Result.class, "result");
+
+    private final long timeoutMillis;
+    private final long startTime;
+    private final Thread owner;
+    private volatile Result<T> result;
+    private Consumer<T> thenConsumer;
+    private Consumer<Expected<T>> thenExpectedConsumer;
+    private Consumer<Throwable> catchConsumer;
+    private List<Consumer<Promise<T>>> completeListeners;
+    private List<Runnable> cancelHooks;
+    private Runnable timeoutHandler;
+    @SuppressWarnings("rawtypes")
+    private Consumer<ReplayPromise> afterResultProcessedHandler;
+    private volatile boolean abandoned;
+    private boolean safe;
+    private boolean replayed;
+
+    public ConfinedReplayPromise(final Duration timeout, final long startTime) {
+        this.timeoutMillis = timeout.toMillis();
+        this.startTime = startTime;
+        this.owner = Thread.currentThread();
+    }
+
+    private boolean confined() {
+        if (Thread.currentThread() != owner) {
+            throw new AssertionError("Confined promise owned by " + owner.getName() +
+                    " used from " + Thread.currentThread().getName());
+        }
+        return true;
+    }
+
+    /**
+     * The hand-off point. Can be called from any thread; only the first result is kept.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onResult(final Result<T> result) {
+        if (RESULT.compareAndSet(this, null, result) && afterResultProcessedHandler != null) {
+            afterResultProcessedHandler.accept(this);
+        }
+    }
+
+    @Override
+    public boolean checkTimeout(final long time) {
+        assert confined();
+        if (result != null || time - startTime <= timeoutMillis) {
+            return false;
+        }
+        final Result<T> timeout = new ResultImpl<>(new PromiseTimeoutException(startTime, timeoutMillis, time));
+        if (!RESULT.compareAndSet(this, null, timeout)) {
+            return false;
+        }
+        abandoned = true;
+        if (timeoutHandler != null) {
+            timeoutHandler.run();
+        }
+        replay();
+        return true;
+    }
+
+    @Override
+    public ReplayPromise<T> onTimeout(final Runnable handler) {
+        assert confined();
+        timeoutHandler = handler;
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ReplayPromise<T> afterResultProcessed(final Consumer<ReplayPromise> handler) {
+        assert confined();
+        afterResultProcessedHandler = handler;
+        return this;
+    }
+
+    @Override
+    public void replay() {
+        assert confined();
+        if (!replayed) {
+            replayed = true;
+            doOnResult(result);
+        }
+    }
+
+    private void doOnResult(final Result<T> result) {
+        if (cancelHooks != null && abandoned) {
+            for (int index = 0; index < cancelHooks.size(); index++) {
+                cancelHooks.get(index).run();
+            }
+        }
+        if (result.success()) {
+            runThen(thenConsumer, thenExpectedConsumer, result);
+        } else if (catchConsumer != null) {
+            catchConsumer.accept(result.cause());
+        }
+        if (completeListeners != null) {
+            for (int index = 0; index < completeListeners.size(); index++) {
+                completeListeners.get(index).accept(this);
+            }
+        }
+    }
+
+    /**
+     * Runs then handlers, from the replay or for a handler added after the replay.
+     */
+    private void runThen(final Consumer<T> thenConsumer,
+                         final Consumer<Expected<T>> thenExpectedConsumer,
+                         final Result<T> result) {
+        if (!safe) {
+            fireThen(thenConsumer, thenExpectedConsumer, result);
+        } else {
+            try {
+                fireThen(thenConsumer, thenExpectedConsumer, result);
+            } catch (Exception ex) {
+                if (catchConsumer != null) {
+                    catchConsumer.accept(new ThenHandlerException(ex));
+                }
+            }
+        }
+    }
+
+    private void fireThen(final Consumer<T> thenConsumer,
+                          final Consumer<Expected<T>> thenExpectedConsumer,
+                          final Result<T> result) {
+        if (thenConsumer != null) {
+            thenConsumer.accept(result.get());
+        }
+        if (thenExpectedConsumer != null) {
+            thenExpectedConsumer.accept(result.expect());
+        }
+    }
+
+    /**
+     * A then handler added after the replay runs right away, as it does on an atomic replay promise.
+     */
+    private void lateThen(final Consumer<T> thenConsumer, final Consumer<Expected<T>> thenExpectedConsumer) {
+        if (result.success()) {
+            runThen(thenConsumer, thenExpectedConsumer, result);
+        }
+    }
+
+    @Override
+    public Promise<T> then(final Consumer<T> consumer) {
+        assert confined();
+        if (replayed) {
+            lateThen(consumer, null);
+            return this;
+        }
+        thenConsumer = consumer;
+        return this;
+    }
+
+    @Override
+    public Promise<T> thenSafe(final Consumer<T> consumer) {
+        assert confined();
+        safe = true;
+        if (replayed) {
+            lateThen(consumer, null);
+            return this;
+        }
+        thenConsumer = consumer;
+        return this;
+    }
+
+    @Override
+    public Promise<T> whenComplete(final Consumer<Promise<T>> doneListener) {
+        assert confined();
+        if (replayed) {
+            doneListener.accept(this);
+            return this;
+        }
+        if (completeListeners == null) {
+            completeListeners = new ArrayList<>(2);
+        }
+        completeListeners.add(doneListener);
+        return this;
+    }
+
+    /**
+     * Can be called from any thread, like {@link #onResult(Result)}. The hooks run when the promise is replayed.
+     */
+    @Override
+    public boolean cancel() {
+        if (!RESULT.compareAndSet(this, null, PromiseUtil.cancelledResult())) {
+            return false;
+        }
+        abandoned = true;
+        if (afterResultProcessedHandler != null) {
+            afterResultProcessedHandler.accept(this);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean cancelled() {
+        return abandoned;
+    }
+
+    /**
+     * Like the other handlers, cancel hooks are registered on the owner thread.
+     */
+    @Override
+    public void onCancel(final Runnable hook) {
+        assert confined();
+        if (replayed) {
+            if (abandoned) {
+                hook.run();
+            }
+            return;
+        }
+        if (cancelHooks == null) {
+            cancelHooks = new ArrayList<>(1);
+        }
+        cancelHooks.add(hook);
+    }
+
+    @Override
+    public Promise<T> thenExpect(final Consumer<Expected<T>> consumer) {
+        assert confined();
+        if (replayed) {
+            lateThen(null, consumer);
+            return this;
+        }
+        thenExpectedConsumer = consumer;
+        return this;
+    }
+
+    @Override
+    public Promise<T> thenSafeExpect(final Consumer<Expected<T>> consumer) {
+        assert confined();
+        safe = true;
+        if (replayed) {
+            lateThen(null, consumer);
+            return this;
+        }
+        thenExpectedConsumer = consumer;
+        return this;
+    }
+
+    @Override
+    public boolean supportsSafe() {
+        return true;
+    }
+
+    @Override
+    public <U> Promise<U> thenMap(final Function<? super T, ? extends U> mapper) {
+        return PromiseUtil.mapPromise(this, mapper);
+    }
+
+    @Override
+    public Promise<T> catchError(final Consumer<Throwable> consumer) {
+        assert confined();
+        catchConsumer = consumer;
+        if (replayed && result.failure()) {
+            consumer.accept(result.cause());
+        }
+        return this;
+    }
+
+    @Override
+    public Promise<T> invokeWithReactor(final Reactor reactor) {
+        return moveHandlersTo(reactor.promise());
+    }
+
+    @Override
+    public Promise<T> invokeWithReactor(final Reactor reactor, final Duration timeout) {
+        return moveHandlersTo(reactor.promise(timeout));
+    }
+
+    private Promise<T> moveHandlersTo(final Promise<T> reactorPromise) {
+        assert confined();
+        if (thenConsumer != null) {
+            if (safe) {
+                reactorPromise.thenSafe(thenConsumer);
+            } else {
+                reactorPromise.then(thenConsumer);
+            }
+        }
+        if (thenExpectedConsumer != null) {
+            if (safe) {
+                reactorPromise.thenSafeExpect(thenExpectedConsumer);
+            } else {
+                reactorPromise.thenExpect(thenExpectedConsumer);
+            }
+        }
+        if (catchConsumer != null) {
+            reactorPromise.catchError(catchConsumer);
+        }
+        if (completeListeners != null) {
+            completeListeners.forEach(reactorPromise::whenComplete);
+        }
+        if (cancelHooks != null) {
+            cancelHooks.forEach(reactorPromise::onCancel);
+        }
+        thenConsumer = null;
+        thenExpectedConsumer = null;
+        catchConsumer = null;
+        completeListeners = null;
+        cancelHooks = null;
+        thenPromise(reactorPromise);
+        invoke();
+        return this;
+    }
+
+    @Override
+    public boolean success() {
+        return checkedResult().success();
+    }
+
+    @Override
+    public boolean complete() {
+        return result != null;
+    }
+
+    @Override
+    public boolean failure() {
+        return checkedResult().failure();
+    }
+
+    @Override
+    public Throwable cause() {
+        return checkedResult().cause();
+    }
+
+    @Override
+    public Expected<T> expect() {
+        final Result<T> result = checkedResult();
+        if (result.failure()) {
+            throw new IllegalStateException(result.cause());
+        }
+        return result.expect();
+    }
+
+    @Override
+    public T get() {
+        final Result<T> result = checkedResult();
+        if (result.failure()) {
+            if (result.cause() instanceof RuntimeException) {
+                throw (RuntimeException) result.cause();
+            }
+            throw new RejectedPromiseException(result.cause());
+        }
+        return result.get();
+    }
+
+    @Override
+    public T orElse(final T other) {
+        final Result<T> result = checkedResult();
+        return result.success() ? result.get() : other;
+    }
+
+    private Result<T> checkedResult() {
+        final Result<T> result = this.result;
+        if (result == null) {
+            throw new NoSuchElementException("No value present, result not returned.");
+        }
+        return result;
+    }
+
+    @Override
+    public Promise<T> freeze() {
+        throw new IllegalStateException("Freeze (freeze()) only makes sense for callback " +
+                "and blocking promises because replay promises are only accessed from one " +
+                "thread so mutability is ok.");
+    }
+}
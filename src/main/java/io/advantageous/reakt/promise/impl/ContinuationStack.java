@@ -0,0 +1,285 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free (Treiber) stack of the continuations registered on a promise.
+ * <p>
+ * Registering is one allocation and one CAS on the head: no monitor, no array copy. Completing swaps the head
+ * for a {@code CLOSED} marker, which hands the completing thread every continuation registered so far and makes
+ * any later push fail, so the registering thread knows to dispatch the continuation itself.
+ * A continuation is therefore run exactly once even when registration races completion.
+ * <p>
+ * Then and catch handlers have one slot per kind: registering one again swaps the handler of the node already on
+ * the stack instead of pushing a new node, so a replaced handler is not retained and costs no allocation.
+ * Whoever runs a slot takes its handler out of the node, so a swap that loses the race with completion sees the
+ * node taken and falls back to a push, which tells it the stack is closed.
+ * <p>
+ * Promises extend this class rather than point to it, so the head is a field of the promise and not a separate
+ * object.
+ *
+ * @author Rick Hightower
+ */
+abstract class ContinuationStack {
+
+    static final int THEN = 0;
+    static final int THEN_EXPECT = 1;
+    static final int CATCH = 2;
+    static final int COMPLETE = 3;
+    static final int CANCEL = 4;
+
+    private static final AtomicReferenceFieldUpdater<ContinuationStack, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ContinuationStack.class, Node.class, "head");
+
+    private static final Node CLOSED = new Node(-1, null, null);
+    private static final Object TAKEN = new Object();
+
+    private volatile Node head;
+
+    /**
+     * Runs the continuations of the completed promise. Called by the {@link Trampoline}.
+     */
+    abstract void runContinuations();
+
+    /**
+     * Reports an exception thrown by a continuation when the promise was completed from inside another promise's
+     * continuation, so there is no caller of its own to throw it to. Called by the {@link Trampoline}.
+     *
+     * @param ex exception thrown by a continuation
+     */
+    void continuationFailed(final RuntimeException ex) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+    }
+
+    /**
+     * Reverses a chain taken from the stack, so it is in registration order.
+     */
+    private static Node reverse(Node node) {
+        Node reversed = null;
+        while (node != null) {
+            final Node next = node.next;
+            node.next = reversed;
+            reversed = node;
+            node = next;
+        }
+        return reversed;
+    }
+
+    /**
+     * Registers a continuation.
+     *
+     * @param kind    one of {@link #THEN}, {@link #THEN_EXPECT}, {@link #CATCH}, {@link #COMPLETE},
+     *                {@link #CANCEL}
+     * @param handler the handler
+     * @return false if the stack is closed, in which case the caller must dispatch the handler itself
+     */
+    final boolean pushContinuation(final int kind, final Object handler) {
+        Node current = head;
+        if (current == CLOSED) {
+            return false;
+        }
+        final Node node = new Node(kind, handler, current);
+        while (!HEAD.compareAndSet(this, current, node)) {
+            current = head;
+            if (current == CLOSED) {
+                return false;
+            }
+            node.next = current;
+        }
+        return true;
+    }
+
+    /**
+     * Registers the handler of a single-slot kind, swapping it into the latest node of that kind when there is one.
+     *
+     * @param kind    one of {@link #THEN}, {@link #THEN_EXPECT}, {@link #CATCH}
+     * @param handler the handler
+     * @return false if the stack is closed, in which case the caller must dispatch the handler itself
+     */
+    final boolean setContinuation(final int kind, final Object handler) {
+        final Node node = latestNode(head, kind);
+        if (node != null) {
+            final Object current = node.handler;
+            if (current != TAKEN && Node.HANDLER.compareAndSet(node, current, handler)) {
+                return true;
+            }
+        }
+        return pushContinuation(kind, handler);
+    }
+
+    /**
+     * Closes the stack. Only the first call gets the continuations.
+     *
+     * @return continuations in registration order, null if none or already closed
+     */
+    final Node closeContinuations() {
+        final Node taken = HEAD.getAndSet(this, CLOSED);
+        return taken == CLOSED ? null : reverse(taken);
+    }
+
+    /**
+     * Closes the stack, first taking the latest continuation of a kind and handing it to
+     * {@link #closing(Object)}, so a registration that finds the stack closed already sees it.
+     * Only the first call gets the continuations.
+     *
+     * @param kind single-slot kind to take before closing
+     * @return continuations in registration order, null if none or already closed
+     */
+    final Node closeContinuations(final int kind) {
+        Node current;
+        Node takenNode = null;
+        Object taken = null;
+        do {
+            current = head;
+            if (current == CLOSED) {
+                return null;
+            }
+            final Node node = latestNode(current, kind);
+            if (node != takenNode) {
+                takenNode = node;
+                taken = node == null ? null : node.take();
+            }
+            closing(taken);
+        } while (!HEAD.compareAndSet(this, current, CLOSED));
+        return reverse(current);
+    }
+
+    /**
+     * Receives the continuation taken by {@link #closeContinuations(int)} before the stack closes.
+     *
+     * @param handler the handler, or null if none was registered
+     */
+    void closing(final Object handler) {
+    }
+
+    /**
+     * Takes the continuations without closing, for moving them to another promise.
+     *
+     * @return continuations in registration order, null if none or closed
+     */
+    final Node drainContinuations() {
+        Node current = head;
+        while (current != null && current != CLOSED) {
+            if (HEAD.compareAndSet(this, current, null)) {
+                return reverse(current);
+            }
+            current = head;
+        }
+        return null;
+    }
+
+    private static Node latestNode(final Node from, final int kind) {
+        for (Node node = from; node != null && node != CLOSED; node = node.next) {
+            if (node.kind == kind) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Latest continuation of a kind, without taking it.
+     *
+     * @param kind kind
+     * @return handler or null
+     */
+    final Object latestContinuation(final int kind) {
+        final Node node = latestNode(head, kind);
+        return node == null ? null : node.handler();
+    }
+
+    /**
+     * All continuations of a kind, without taking them.
+     *
+     * @param kind kind
+     * @return handlers in registration order
+     */
+    final List<Object> continuations(final int kind) {
+        final List<Object> handlers = new ArrayList<>();
+        for (Node node = head; node != null && node != CLOSED; node = node.next) {
+            if (node.kind == kind && node.handler() != null) {
+                handlers.add(node.handler());
+            }
+        }
+        Collections.reverse(handlers);
+        return handlers;
+    }
+
+    /**
+     * @return true once the stack has been closed
+     */
+    final boolean continuationsClosed() {
+        return head == CLOSED;
+    }
+
+    /**
+     * Reopens an empty stack so the promise can be reused. Only call when no thread can register or complete.
+     */
+    final void resetContinuations() {
+        head = null;
+    }
+
+    /**
+     * A registered continuation.
+     */
+    static final class Node {
+        private static final AtomicReferenceFieldUpdater<Node, Object> HANDLER =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "handler");
+
+        private final int kind;
+        private volatile Object handler;
+        private Node next;
+
+        private Node(final int kind, final Object handler, final Node next) {
+            this.kind = kind;
+            this.handler = handler;
+            this.next = next;
+        }
+
+        int kind() {
+            return kind;
+        }
+
+        Object handler() {
+            final Object handler = this.handler;
+            return handler == TAKEN ? null : handler;
+        }
+
+        /**
+         * Takes the handler out of a single-slot node, so a later swap into the node fails.
+         *
+         * @return the handler, null if it was already taken
+         */
+        Object take() {
+            final Object handler = HANDLER.getAndSet(this, TAKEN);
+            return handler == TAKEN ? null : handler;
+        }
+
+        Node next() {
+            return next;
+        }
+    }
+}
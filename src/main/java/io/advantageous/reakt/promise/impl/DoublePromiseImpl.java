@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.promise.DoublePromise;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * {@link DoublePromise} that keeps its value unboxed.
+ *
+ * @author Rick Hightower
+ */
+public class DoublePromiseImpl extends PrimitivePromise<DoublePromise> implements DoublePromise {
+
+    public DoublePromiseImpl() {
+        this(null);
+    }
+
+    /**
+     * @param replayExecutor runs the handlers after completion, null to run them on the completing thread
+     */
+    public DoublePromiseImpl(final Executor replayExecutor) {
+        super(replayExecutor);
+    }
+
+    @Override
+    void acceptThen(final Object handler, final long bits) {
+        ((DoubleConsumer) handler).accept(Double.longBitsToDouble(bits));
+    }
+
+    @Override
+    public void reply(final double value) {
+        replyBits(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public DoublePromise then(final DoubleConsumer consumer) {
+        register(THEN, consumer);
+        return this;
+    }
+
+    @Override
+    public DoublePromise catchError(final Consumer<Throwable> consumer) {
+        register(CATCH, consumer);
+        return this;
+    }
+
+    @Override
+    public DoublePromise whenComplete(final Consumer<DoublePromise> doneListener) {
+        register(COMPLETE, doneListener);
+        return this;
+    }
+
+    @Override
+    public double get() {
+        final long bits = bits();
+        return Double.longBitsToDouble(bits);
+    }
+
+    @Override
+    public double orElse(final double other) {
+        return success() ? get() : other;
+    }
+
+    @Override
+    public DoublePromise thenMap(final DoubleUnaryOperator mapper) {
+        final DoublePromiseImpl mapped = new DoublePromiseImpl();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsDouble(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public <U> Promise<U> thenMapToObj(final DoubleFunction<? extends U> mapper) {
+        final Promise<U> mapped = Promises.promise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.apply(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public Promise<Double> boxed() {
+        return thenMapToObj(Double::valueOf);
+    }
+}
@@ -162,7 +162,7 @@ public class FinalPromise<T> implements Promise<T> {
      * @return raw value associated with the result.
      */
     public T get() {
-        return PromiseUtil.doGet(result, this);
+        return PromiseUtil.doGet(result.get());
     }
 
     @Override
@@ -206,6 +206,11 @@ public class FinalPromise<T> implements Promise<T> {
         throw new UnsupportedOperationException("then(..) not supported for final promise");
     }
 
+    @Override
+    public <U> Promise<U> thenCompose(Function<? super T, ? extends Promise<U>> mapper) {
+        throw new UnsupportedOperationException("thenCompose(..) not supported for final promise");
+    }
+
     @Override
     public T orElse(T other) {
         if (!complete()) {
@@ -0,0 +1,64 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Invokable;
+import io.advantageous.reakt.promise.Promise;
+
+/**
+ * Promise that comes back with the value of the first child promise that succeeds.
+ * It only fails once every child has failed.
+ * <p>
+ * Blocking variant, for legacy integration and testing.
+ *
+ * @param <T> type of the child results
+ * @author Rick Hightower
+ */
+public class FirstSuccessBlockingPromise<T> extends BlockingPromise<T> implements Promise<T>, Invokable {
+
+    private final Promise<T>[] promises;
+    private boolean invoked;
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public FirstSuccessBlockingPromise(final Promise<T>... promises) {
+        this.promises = promises;
+        PromiseUtil.firstSuccess(this, promises);
+    }
+
+    @Override
+    public Promise<T> invoke() {
+        if (invoked) {
+            throw new IllegalStateException("Promise can only be invoked once");
+        }
+        invoked = true;
+        for (Promise<?> promise : promises) {
+            if (!promise.isInvokable()) {
+                throw new IllegalStateException("FirstSuccessBlockingPromise can only be invoked if all children are invokeable");
+            }
+            promise.invoke();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isInvokable() {
+        return true;
+    }
+}
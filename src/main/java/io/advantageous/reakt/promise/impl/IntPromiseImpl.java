@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.promise.IntPromise;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@link IntPromise} that keeps its value unboxed.
+ *
+ * @author Rick Hightower
+ */
+public class IntPromiseImpl extends PrimitivePromise<IntPromise> implements IntPromise {
+
+    public IntPromiseImpl() {
+        this(null);
+    }
+
+    /**
+     * @param replayExecutor runs the handlers after completion, null to run them on the completing thread
+     */
+    public IntPromiseImpl(final Executor replayExecutor) {
+        super(replayExecutor);
+    }
+
+    @Override
+    void acceptThen(final Object handler, final long bits) {
+        ((IntConsumer) handler).accept((int) bits);
+    }
+
+    @Override
+    public void reply(final int value) {
+        replyBits(value);
+    }
+
+    @Override
+    public IntPromise then(final IntConsumer consumer) {
+        register(THEN, consumer);
+        return this;
+    }
+
+    @Override
+    public IntPromise catchError(final Consumer<Throwable> consumer) {
+        register(CATCH, consumer);
+        return this;
+    }
+
+    @Override
+    public IntPromise whenComplete(final Consumer<IntPromise> doneListener) {
+        register(COMPLETE, doneListener);
+        return this;
+    }
+
+    @Override
+    public int get() {
+        final long bits = bits();
+        return (int) bits;
+    }
+
+    @Override
+    public int orElse(final int other) {
+        return success() ? get() : other;
+    }
+
+    @Override
+    public IntPromise thenMap(final IntUnaryOperator mapper) {
+        final IntPromiseImpl mapped = new IntPromiseImpl();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsInt(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public <U> Promise<U> thenMapToObj(final IntFunction<? extends U> mapper) {
+        final Promise<U> mapped = Promises.promise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.apply(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public Promise<Integer> boxed() {
+        return thenMapToObj(Integer::valueOf);
+    }
+}
@@ -39,7 +39,10 @@ public class InvokerPromise<T> extends BasePromise<T> implements Invokable {
             throw new IllegalStateException("Promise can only be invoked once");
         }
         invoked = true;
-        consumer.accept(this);
+        /* Nobody is waiting for a call that was cancelled before it started. */
+        if (!cancelled()) {
+            consumer.accept(this);
+        }
         return this;
     }
 
@@ -0,0 +1,119 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.promise.LongPromise;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * {@link LongPromise} that keeps its value unboxed.
+ *
+ * @author Rick Hightower
+ */
+public class LongPromiseImpl extends PrimitivePromise<LongPromise> implements LongPromise {
+
+    public LongPromiseImpl() {
+        this(null);
+    }
+
+    /**
+     * @param replayExecutor runs the handlers after completion, null to run them on the completing thread
+     */
+    public LongPromiseImpl(final Executor replayExecutor) {
+        super(replayExecutor);
+    }
+
+    @Override
+    void acceptThen(final Object handler, final long bits) {
+        ((LongConsumer) handler).accept(bits);
+    }
+
+    @Override
+    public void reply(final long value) {
+        replyBits(value);
+    }
+
+    @Override
+    public LongPromise then(final LongConsumer consumer) {
+        register(THEN, consumer);
+        return this;
+    }
+
+    @Override
+    public LongPromise catchError(final Consumer<Throwable> consumer) {
+        register(CATCH, consumer);
+        return this;
+    }
+
+    @Override
+    public LongPromise whenComplete(final Consumer<LongPromise> doneListener) {
+        register(COMPLETE, doneListener);
+        return this;
+    }
+
+    @Override
+    public long get() {
+        final long bits = bits();
+        return bits;
+    }
+
+    @Override
+    public long orElse(final long other) {
+        return success() ? get() : other;
+    }
+
+    @Override
+    public LongPromise thenMap(final LongUnaryOperator mapper) {
+        final LongPromiseImpl mapped = new LongPromiseImpl();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.applyAsLong(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public <U> Promise<U> thenMapToObj(final LongFunction<? extends U> mapper) {
+        final Promise<U> mapped = Promises.promise();
+        whenComplete(promise -> {
+            if (promise.success()) {
+                mapped.reply(mapper.apply(promise.get()));
+            } else {
+                mapped.reject(promise.cause());
+            }
+        });
+        return mapped;
+    }
+
+    @Override
+    public Promise<Long> boxed() {
+        return thenMapToObj(Long::valueOf);
+    }
+}
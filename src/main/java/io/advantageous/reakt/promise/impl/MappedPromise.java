@@ -0,0 +1,183 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * Promise holding the value of another promise passed through a mapper, as returned by {@code thenMap}.
+ * <p>
+ * The first stage listens to its source as soon as it is created, so a mapper runs even if nobody looks at
+ * the mapped promise. Calling {@code thenMap} on the last stage of a run before the source completes fuses the
+ * new stage onto the run: it takes over the one listener, and when the source completes the mappers of the
+ * whole run are applied one after the other, with a single result for the last stage.
+ * <p>
+ * A fused stage that is looked at later still completes, with the value its own mapper produced,
+ * and no mapper runs twice.
+ * If the source fails, every stage fails with the same result.
+ * <p>
+ * Cancelling a stage cancels the source, so the work it is waiting for can stop.
+ *
+ * @param <T> value of result.
+ * @author Rick Hightower
+ */
+class MappedPromise<T> extends BasePromise<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<MappedPromise, MappedPromise> FUSED_INTO =
+            AtomicReferenceFieldUpdater.newUpdater(MappedPromise.class, MappedPromise.class, "fusedInto");
+
+    /**
+     * Marks the last stage of a run once the source completed; the run can no longer grow.
+     */
+    private static final MappedPromise<?> END = new MappedPromise<>(null, null, null);
+
+    /**
+     * Set once a handler was added or the result was read.
+     */
+    private static final int OBSERVED = 8;
+    /**
+     * Set on a fused stage once its value has been computed.
+     */
+    private static final int PASSED = 16;
+    /**
+     * Set with {@link #PASSED} when the source failed.
+     */
+    private static final int PASSED_FAILURE = 32;
+
+    /**
+     * Stage before this one in a fused run, null for the first stage.
+     */
+    private final MappedPromise<?> upstream;
+    private final Function<Object, ?> mapper;
+    /**
+     * Promise the first stage of the run maps, null for the other stages.
+     */
+    private final Promise<Object> source;
+    /**
+     * Next stage of the run, or {@link #END} once the run is over.
+     */
+    private volatile MappedPromise<?> fusedInto;
+    /**
+     * Value, or failed result, of a fused stage computed before anyone looked at it.
+     */
+    private Object passed;
+
+    @SuppressWarnings("unchecked")
+    MappedPromise(final Promise<?> source, final MappedPromise<?> upstream, final Function<?, ?> mapper) {
+        this.upstream = upstream;
+        this.mapper = (Function<Object, ?>) mapper;
+        this.source = (Promise<Object>) source;
+        if (source != null) {
+            this.source.whenComplete(promise -> run(PromiseUtil.completedResult(promise)));
+        }
+    }
+
+    @Override
+    public <U> Promise<U> thenMap(final Function<? super T, ? extends U> mapper) {
+        if (fusedInto == null) {
+            final MappedPromise<U> next = new MappedPromise<>(null, this, mapper);
+            if (FUSED_INTO.compareAndSet(this, null, next)) {
+                return next;
+            }
+        }
+        return new MappedPromise<>(this, null, mapper);
+    }
+
+    /**
+     * Cancelling a mapped promise also cancels the promise the run of stages maps.
+     */
+    @Override
+    public boolean cancel() {
+        if (!super.cancel()) {
+            return false;
+        }
+        MappedPromise<?> head = this;
+        while (head.upstream != null) {
+            head = head.upstream;
+        }
+        head.source.cancel();
+        return true;
+    }
+
+    @Override
+    void observe() {
+        final int flags = addFlags(OBSERVED);
+        if ((flags & OBSERVED) == 0 && (flags & PASSED) != 0) {
+            deliver(flags);
+        }
+    }
+
+    /**
+     * Runs the mappers of the run, starting with this stage, the first one.
+     */
+    @SuppressWarnings("unchecked")
+    private void run(final Result<?> result) {
+        MappedPromise<Object> stage = (MappedPromise<Object>) this;
+        if (result.failure()) {
+            for (MappedPromise<Object> next = stage.end(); next != null; next = stage.end()) {
+                stage.pass(result, PASSED | PASSED_FAILURE);
+                stage = next;
+            }
+            stage.onResult((Result<Object>) result);
+            return;
+        }
+        Object value = stage.mapper.apply(result.get());
+        for (MappedPromise<Object> next = stage.end(); next != null; next = stage.end()) {
+            stage.pass(value, PASSED);
+            stage = next;
+            value = stage.mapper.apply(value);
+        }
+        stage.reply(value);
+    }
+
+    /**
+     * Ends the run at this stage, unless a later stage was fused into it first.
+     *
+     * @return the later stage, or null if this stage is the last one
+     */
+    @SuppressWarnings("unchecked")
+    private MappedPromise<Object> end() {
+        return FUSED_INTO.compareAndSet(this, null, END) ? null : (MappedPromise<Object>) fusedInto;
+    }
+
+    private void pass(final Object value, final int flags) {
+        passed = value;
+        final int previous = addFlags(flags);
+        if ((previous & OBSERVED) != 0) {
+            deliver(previous | flags);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(final int flags) {
+        final Object value = passed;
+        passed = null;
+        if ((flags & PASSED_FAILURE) != 0) {
+            onResult((Result<T>) value);
+        } else {
+            reply((T) value);
+        }
+    }
+}
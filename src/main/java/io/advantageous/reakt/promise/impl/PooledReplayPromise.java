@@ -0,0 +1,402 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Expected;
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.exception.PromiseTimeoutException;
+import io.advantageous.reakt.impl.ResultImpl;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.ReplayPromise;
+import io.advantageous.reakt.reactor.Reactor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Replay promise that a reactor recycles once it has been replayed.
+ * <p>
+ * Each use of the promise gets a new generation, and users only ever see a {@link Ref} stamped with the
+ * generation it was handed out for. Generation and phase share one state word, so completing a stale ref is a
+ * failed CAS: a late reply to a promise that timed out and was reused is dropped instead of completing the new use.
+ * Any other call on a stale ref throws {@code IllegalStateException}.
+ * <p>
+ * Acquire and release are done by the reactor; see {@code ReactorBuilder#setPromisePoolSize(int)}.
+ *
+ * @param <T> type of result
+ * @author Rick Hightower
+ */
+public class PooledReplayPromise<T> extends BasePromise<T> implements ReplayPromise<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<PooledReplayPromise> STATE =
+            AtomicLongFieldUpdater.newUpdater(PooledReplayPromise.class, "state");
+
+    private static final long PENDING = 0;
+    private static final long COMPLETE = 1;
+    private static final long FREE = 2;
+    private static final long PHASE_MASK = 3;
+
+    /**
+     * generation &lt;&lt; 2 | phase.
+     */
+    private volatile long state = FREE;
+    private long timeoutMillis;
+    private long startTime;
+    private boolean replayed;
+    private Runnable timeoutHandler;
+    @SuppressWarnings("rawtypes")
+    private Consumer<ReplayPromise> afterResultProcessedHandler;
+    private Ref<T> ref;
+
+    private static long state(final long generation, final long phase) {
+        return generation << 2 | phase;
+    }
+
+    /**
+     * Starts a new use of the promise. Only called by the owning reactor.
+     *
+     * @param timeout   timeout
+     * @param startTime start time in the units of the reactor's time source
+     * @return the ref to hand to the user
+     */
+    public Ref<T> acquire(final Duration timeout, final long startTime) {
+        final long current = state;
+        if ((current & PHASE_MASK) != FREE) {
+            throw new IllegalStateException("Promise is still in use");
+        }
+        final long generation = (current >>> 2) + 1;
+        this.timeoutMillis = timeout.toMillis();
+        this.startTime = startTime;
+        this.replayed = false;
+        this.ref = new Ref<>(this, generation);
+        /* The volatile write publishes the reset fields with the new generation. */
+        state = state(generation, PENDING);
+        return ref;
+    }
+
+    /**
+     * Ends the current use. Refs to it become stale. Only called by the owning reactor after replay.
+     */
+    public void release() {
+        final long generation = state >>> 2;
+        result = null;
+        clearHandlers();
+        timeoutHandler = null;
+        ref = null;
+        state = state(generation, FREE);
+    }
+
+    /**
+     * @return generation of the current or last use
+     */
+    public long generation() {
+        return state >>> 2;
+    }
+
+    /**
+     * @return true if the promise has been released and not acquired again
+     */
+    public boolean free() {
+        return (state & PHASE_MASK) == FREE;
+    }
+
+    /**
+     * @return the ref of the current use, or null if free
+     */
+    public Ref<T> ref() {
+        return ref;
+    }
+
+    private boolean complete(final long generation, final Result<T> result) {
+        if (STATE.compareAndSet(this, state(generation, PENDING), state(generation, COMPLETE))) {
+            this.result = result;
+            return true;
+        }
+        return false;
+    }
+
+    private void check(final long generation) {
+        final long current = state;
+        if (current >>> 2 != generation || (current & PHASE_MASK) == FREE) {
+            throw new IllegalStateException("Stale promise: generation " + generation +
+                    " was recycled, current generation " + (current >>> 2));
+        }
+    }
+
+    @Override
+    public void onResult(final Result<T> result) {
+        onResult(state >>> 2, result);
+    }
+
+    private void onResult(final long generation, final Result<T> result) {
+        if (complete(generation, result) && afterResultProcessedHandler != null) {
+            afterResultProcessedHandler.accept(this);
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        return cancelUse(state >>> 2);
+    }
+
+    /**
+     * Completes this use with its own cancellation and marks it abandoned before it can be replayed.
+     */
+    private boolean cancelUse(final long generation) {
+        if (!complete(generation, PromiseUtil.cancelledResult())) {
+            return false;
+        }
+        addFlags(ABANDONED);
+        if (afterResultProcessedHandler != null) {
+            afterResultProcessedHandler.accept(this);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean checkTimeout(final long time) {
+        final long current = state;
+        if ((current & PHASE_MASK) != PENDING || time - startTime <= timeoutMillis) {
+            return false;
+        }
+        final Result<T> timeout = new ResultImpl<>(new PromiseTimeoutException(startTime, timeoutMillis, time));
+        if (!complete(current >>> 2, timeout)) {
+            return false;
+        }
+        addFlags(ABANDONED);
+        if (timeoutHandler != null) {
+            timeoutHandler.run();
+        }
+        replay();
+        return true;
+    }
+
+    @Override
+    public ReplayPromise<T> onTimeout(final Runnable handler) {
+        timeoutHandler = handler;
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public ReplayPromise<T> afterResultProcessed(final Consumer<ReplayPromise> handler) {
+        afterResultProcessedHandler = handler;
+        return this;
+    }
+
+    @Override
+    public void replay() {
+        if (!replayed) {
+            replayed = true;
+            doOnResult(result);
+        }
+    }
+
+    @Override
+    protected Promise<T> self() {
+        return ref != null ? ref : this;
+    }
+
+    @Override
+    public Promise<T> freeze() {
+        throw new IllegalStateException("Freeze (freeze()) only makes sense for callback " +
+                "and blocking promises because replay promises are only accessed from one " +
+                "thread so mutability is ok.");
+    }
+
+    /**
+     * What the user holds: a pooled promise plus the generation it was handed out for.
+     *
+     * @param <T> type of result
+     */
+    public static class Ref<T> implements Promise<T> {
+
+        private final PooledReplayPromise<T> promise;
+        private final long generation;
+
+        private Ref(final PooledReplayPromise<T> promise, final long generation) {
+            this.promise = promise;
+            this.generation = generation;
+        }
+
+        PooledReplayPromise<T> promise() {
+            return promise;
+        }
+
+        /**
+         * @return generation this ref was handed out for
+         */
+        public long generation() {
+            return generation;
+        }
+
+        /**
+         * @return true if the promise has been recycled since this ref was handed out
+         */
+        public boolean stale() {
+            final long current = promise.state;
+            return current >>> 2 != generation || (current & PHASE_MASK) == FREE;
+        }
+
+        /**
+         * Completes this use of the promise. A result for a stale ref is dropped.
+         */
+        @Override
+        public void onResult(final Result<T> result) {
+            promise.onResult(generation, result);
+        }
+
+        @Override
+        public Promise<T> then(final Consumer<T> consumer) {
+            promise.check(generation);
+            promise.then(consumer);
+            return this;
+        }
+
+        @Override
+        public Promise<T> whenComplete(final Consumer<Promise<T>> doneListener) {
+            promise.check(generation);
+            promise.whenComplete(doneListener);
+            return this;
+        }
+
+        @Override
+        public Promise<T> thenExpect(final Consumer<Expected<T>> consumer) {
+            promise.check(generation);
+            promise.thenExpect(consumer);
+            return this;
+        }
+
+        @Override
+        public Promise<T> thenSafe(final Consumer<T> consumer) {
+            promise.check(generation);
+            promise.thenSafe(consumer);
+            return this;
+        }
+
+        @Override
+        public Promise<T> thenSafeExpect(final Consumer<Expected<T>> consumer) {
+            promise.check(generation);
+            promise.thenSafeExpect(consumer);
+            return this;
+        }
+
+        @Override
+        public boolean supportsSafe() {
+            return true;
+        }
+
+        @Override
+        public <U> Promise<U> thenMap(final Function<? super T, ? extends U> mapper) {
+            promise.check(generation);
+            return PromiseUtil.mapPromise(this, mapper);
+        }
+
+        /**
+         * Cancels this use of the promise. Does nothing for a stale ref.
+         */
+        @Override
+        public boolean cancel() {
+            return !stale() && promise.cancelUse(generation);
+        }
+
+        @Override
+        public boolean cancelled() {
+            promise.check(generation);
+            return promise.cancelled();
+        }
+
+        @Override
+        public void onCancel(final Runnable hook) {
+            promise.check(generation);
+            promise.onCancel(hook);
+        }
+
+        @Override
+        public Promise<T> catchError(final Consumer<Throwable> consumer) {
+            promise.check(generation);
+            promise.catchError(consumer);
+            return this;
+        }
+
+        @Override
+        public Promise<T> invokeWithReactor(final Reactor reactor) {
+            promise.check(generation);
+            promise.invokeWithReactor(reactor);
+            return this;
+        }
+
+        @Override
+        public Promise<T> invokeWithReactor(final Reactor reactor, final Duration timeout) {
+            promise.check(generation);
+            promise.invokeWithReactor(reactor, timeout);
+            return this;
+        }
+
+        @Override
+        public Promise<T> freeze() {
+            return promise.freeze();
+        }
+
+        @Override
+        public boolean success() {
+            promise.check(generation);
+            return promise.success();
+        }
+
+        @Override
+        public boolean complete() {
+            promise.check(generation);
+            return promise.complete();
+        }
+
+        @Override
+        public boolean failure() {
+            promise.check(generation);
+            return promise.failure();
+        }
+
+        @Override
+        public Throwable cause() {
+            promise.check(generation);
+            return promise.cause();
+        }
+
+        @Override
+        public Expected<T> expect() {
+            promise.check(generation);
+            return promise.expect();
+        }
+
+        @Override
+        public T get() {
+            promise.check(generation);
+            return promise.get();
+        }
+
+        @Override
+        public T orElse(final T other) {
+            promise.check(generation);
+            return promise.orElse(other);
+        }
+    }
+}
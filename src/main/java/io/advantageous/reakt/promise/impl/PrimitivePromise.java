@@ -0,0 +1,208 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.exception.RejectedPromiseException;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Base of the primitive promises.
+ * <p>
+ * The value is kept in a {@code long} field (a double as its raw bits), so a reply does not box and does not
+ * allocate a {@code Result}. Handlers are kept in the same lock-free stack as {@link BasePromise} and follow the
+ * same rules: the latest then and catchError handler win, every complete listener runs.
+ * <p>
+ * If the promise has a replay executor, the promise itself is handed to it on completion and the handlers run
+ * when it runs, so a reactor can replay the promise on its own thread without allocating a task.
+ *
+ * @param <P> type of the promise, handed to complete listeners
+ * @author Rick Hightower
+ */
+abstract class PrimitivePromise<P> extends ContinuationStack implements Runnable {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<PrimitivePromise> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(PrimitivePromise.class, "state");
+
+    private static final int PENDING = 0;
+    private static final int COMPLETING = 1;
+    private static final int SUCCESS = 2;
+    private static final int FAILURE = 3;
+
+    private final Executor replayExecutor;
+    private volatile int state;
+    /* Written before the volatile write of the final state, read after reading it. */
+    private long bits;
+    private Throwable cause;
+
+    /**
+     * @param replayExecutor runs the handlers after completion, null to run them on the completing thread
+     */
+    PrimitivePromise(final Executor replayExecutor) {
+        this.replayExecutor = replayExecutor;
+    }
+
+    /**
+     * Passes the value to a then handler.
+     *
+     * @param handler handler registered with then
+     * @param bits    value
+     */
+    abstract void acceptThen(Object handler, long bits);
+
+    @SuppressWarnings("unchecked")
+    private P self() {
+        return (P) this;
+    }
+
+    final void replyBits(final long bits) {
+        if (STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            this.bits = bits;
+            state = SUCCESS;
+            dispatch();
+        }
+    }
+
+    public void reject(final Throwable error) {
+        if (STATE.compareAndSet(this, PENDING, COMPLETING)) {
+            this.cause = error;
+            state = FAILURE;
+            dispatch();
+        }
+    }
+
+    private void dispatch() {
+        if (replayExecutor == null) {
+            Trampoline.dispatch(this);
+        } else {
+            replayExecutor.execute(this);
+        }
+    }
+
+    /**
+     * Runs the handlers. Called by the replay executor.
+     */
+    @Override
+    public final void run() {
+        runContinuations();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    final void runContinuations() {
+        final int state = this.state;
+        if (state < SUCCESS) {
+            return;
+        }
+        final Node chain = closeContinuations();
+        Object thenHandler = null;
+        Consumer<Throwable> catchHandler = null;
+        for (Node node = chain; node != null; node = node.next()) {
+            if (node.kind() == THEN) {
+                thenHandler = node.take();
+            } else if (node.kind() == CATCH) {
+                catchHandler = (Consumer<Throwable>) node.take();
+            }
+        }
+        if (state == SUCCESS) {
+            if (thenHandler != null) {
+                acceptThen(thenHandler, bits);
+            }
+        } else if (catchHandler != null) {
+            catchHandler.accept(cause);
+        }
+        for (Node node = chain; node != null; node = node.next()) {
+            if (node.kind() == COMPLETE) {
+                ((Consumer<P>) node.handler()).accept(self());
+            }
+        }
+    }
+
+    /**
+     * Adds a handler, or runs it now if the handlers have already run.
+     */
+    @SuppressWarnings("unchecked")
+    final void register(final int kind, final Object handler) {
+        if (kind == COMPLETE ? pushContinuation(kind, handler) : setContinuation(kind, handler)) {
+            return;
+        }
+        final int state = this.state;
+        if (kind == THEN) {
+            if (state == SUCCESS) {
+                acceptThen(handler, bits);
+            }
+        } else if (kind == CATCH) {
+            if (state == FAILURE) {
+                ((Consumer<Throwable>) handler).accept(cause);
+            }
+        } else {
+            ((Consumer<P>) handler).accept(self());
+        }
+    }
+
+    public boolean complete() {
+        return state >= SUCCESS;
+    }
+
+    public boolean success() {
+        if (!complete()) {
+            throw new NoSuchElementException("No value present, result not returned.");
+        }
+        return state == SUCCESS;
+    }
+
+    public boolean failure() {
+        if (!complete()) {
+            throw new NoSuchElementException("No value present, result not returned.");
+        }
+        return state == FAILURE;
+    }
+
+    public Throwable cause() {
+        if (!complete()) {
+            throw new NoSuchElementException("No value present, result not returned.");
+        }
+        return cause;
+    }
+
+    /**
+     * @return the value
+     * @throws NoSuchElementException if not complete
+     * @throws RuntimeException       the cause, or the cause wrapped, if the promise failed
+     */
+    final long bits() {
+        final int state = this.state;
+        if (state < SUCCESS) {
+            throw new NoSuchElementException("No value present, result not returned.");
+        }
+        if (state == FAILURE) {
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RejectedPromiseException(cause);
+            }
+        }
+        return bits;
+    }
+}
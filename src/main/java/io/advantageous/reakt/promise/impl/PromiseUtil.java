@@ -18,15 +18,20 @@
 
 package io.advantageous.reakt.promise.impl;
 
+import io.advantageous.reakt.Expected;
 import io.advantageous.reakt.Result;
+import io.advantageous.reakt.Stream;
+import io.advantageous.reakt.exception.PromiseCancelledException;
 import io.advantageous.reakt.exception.RejectedPromiseException;
+import io.advantageous.reakt.impl.StreamResultImpl;
 import io.advantageous.reakt.promise.Promise;
 import io.advantageous.reakt.promise.Promises;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -74,7 +79,8 @@ public interface PromiseUtil {
 
     /**
      * Does the any logic for Any*Promise.
-     * If any child comes back, then the parent comes back.
+     * If any child comes back, then the parent comes back, and the other children are cancelled.
+     * Cancelling the parent cancels the children.
      *
      * @param parent        parent promise
      * @param childPromises list of promises
@@ -84,25 +90,145 @@ public interface PromiseUtil {
 
         final AtomicBoolean done = new AtomicBoolean();
         final Consumer<Promise<T>> runnable = (childPromise) -> {
+            /** Only fire if the child promise is the first promise
+             * so the parent does not fire multiple times. */
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
             /** If any promise fails then stop processing. */
             if (childPromise.failure()) {
-                if (done.compareAndSet(false, true)) {
-                    parent.reject(childPromise.cause());
-                }
+                parent.reject(childPromise.cause());
             } else {
-                /** Only fire if the child promise is the first promise
-                 * so the parent does not fire multiple times. */
-                if (done.compareAndSet(false, true)) {
-                    parent.reject(childPromise.cause());
-                }
+                parent.onResult(Result.result(null));
             }
-
+            /** The other children lost, stop their work. */
+            cancelAll(childPromises);
         };
+        parent.onCancel(() -> cancelAll(childPromises));
         for (Promise<T> childPromise : childPromises) {
             childPromise.whenComplete(runnable);
         }
     }
 
+    /**
+     * Cancels the promises that have not completed.
+     *
+     * @param promises promises
+     */
+    static void cancelAll(final Promise<?>[] promises) {
+        for (Promise<?> promise : promises) {
+            promise.cancel();
+        }
+    }
+
+    /**
+     * Does the logic for FirstSuccess*Promise.
+     * The parent comes back with the value of the first child that succeeds, and only fails once every child
+     * has failed, with the last failure. Once the parent comes back the other children are cancelled.
+     *
+     * @param parent        parent promise
+     * @param childPromises promises racing for the result
+     * @param <T>           type of result
+     */
+    static <T> void firstSuccess(final Promise<T> parent, final Promise<T>[] childPromises) {
+        final QuorumListener<T> listener = new QuorumListener<>(parent, 1, childPromises, true);
+        parent.onCancel(() -> cancelAll(childPromises));
+        for (Promise<T> childPromise : childPromises) {
+            childPromise.whenComplete(listener);
+        }
+    }
+
+    /**
+     * Does the logic for Quorum*Promise.
+     * The parent comes back with the values of the first {@code needed} children that succeed, in the order they
+     * came back. It fails as soon as too many children failed for that to happen.
+     * Once the parent comes back the other children are cancelled.
+     *
+     * @param parent        parent promise
+     * @param needed        how many children have to succeed
+     * @param childPromises promises
+     * @param <T>           type of result
+     */
+    static <T> void quorum(final Promise<List<T>> parent, final int needed, final Promise<T>[] childPromises) {
+        final QuorumListener<T> listener = new QuorumListener<>(parent, needed, childPromises, false);
+        parent.onCancel(() -> cancelAll(childPromises));
+        for (Promise<T> childPromise : childPromises) {
+            childPromise.whenComplete(listener);
+        }
+    }
+
+    /**
+     * Sends the result of each child to the stream as soon as the child completes, in completion order.
+     * The result of the last child is marked complete; with no children, a single empty complete result is sent.
+     * Cancelling any of the stream results stops the stream.
+     *
+     * @param childPromises promises
+     * @param stream        stream fed with the results
+     * @param <T>           type of result
+     */
+    static <T> void asCompleted(final Promise<T>[] childPromises, final Stream<T> stream) {
+        if (childPromises.length == 0) {
+            stream.complete(null);
+            return;
+        }
+        final CompletionQueue<T> queue = new CompletionQueue<T>(childPromises.length) {
+            private final Expected<Runnable> cancelHandler = Expected.of(this::cancel);
+
+            @Override
+            void deliver(final Result<T> result, final boolean last) {
+                stream.onNext(new StreamResultImpl<>(result.failure() ? result.cause() : result.get(), last,
+                        cancelHandler, Expected.empty()));
+            }
+        };
+        queue.listen(childPromises);
+    }
+
+    /**
+     * Folds the values of the children into the parent as they complete, in completion order.
+     * The parent comes back with the folded value once every child has been folded in, or fails with the first
+     * child that fails, or if the accumulator throws.
+     *
+     * @param parent        parent promise
+     * @param childPromises promises
+     * @param identity      starting value
+     * @param accumulator   folds a value in
+     * @param <T>           type of the child results
+     * @param <R>           type of the folded value
+     */
+    static <T, R> void reduce(final Promise<R> parent,
+                              final Promise<T>[] childPromises,
+                              final R identity,
+                              final BiFunction<R, ? super T, R> accumulator) {
+        if (childPromises.length == 0) {
+            parent.reply(identity);
+            return;
+        }
+        final CompletionQueue<T> queue = new CompletionQueue<T>(childPromises.length) {
+            private R value = identity;
+
+            @Override
+            @SuppressWarnings("unchecked")
+            void deliver(final Result<T> result, final boolean last) {
+                if (result.failure()) {
+                    cancel();
+                    parent.onResult((Result<R>) (Result<?>) result);
+                    return;
+                }
+                try {
+                    value = accumulator.apply(value, result.get());
+                } catch (Exception ex) {
+                    cancel();
+                    parent.reject(ex);
+                    return;
+                }
+                if (last) {
+                    parent.reply(value);
+                }
+            }
+        };
+        queue.listen(childPromises);
+    }
+
     static <T, U> Promise<U> mapPromise(Promise<T> thisPromise, Function<? super T, ? extends U> mapper) {
         final Promise<U> mappedPromise = Promises.promise();
         thisPromise.whenComplete(promise -> {
@@ -117,18 +243,89 @@ public interface PromiseUtil {
     }
 
 
-    static <T> T doGet(AtomicReference<Result<T>> result, Promise<?> promise) {
+    /**
+     * Chains an async step: when {@code thisPromise} succeeds, the mapper starts the next call and its promise
+     * completes {@code composedPromise}.
+     * Nothing blocks and no thread is added: each step completes on the thread that completed the step before it,
+     * and a failure or timeout of either step rejects the composed promise.
+     * An invokable promise returned by the mapper is invoked after its handlers are registered.
+     * Cancelling the composed promise cancels the step in flight.
+     *
+     * @param thisPromise     first step
+     * @param mapper          starts the next step from the value of the first
+     * @param composedPromise completed with the outcome of the next step
+     * @param <T>             type of the first step
+     * @param <U>             type of the next step
+     * @return composedPromise
+     */
+    static <T, U> Promise<U> composePromise(final Promise<T> thisPromise,
+                                            final Function<? super T, ? extends Promise<U>> mapper,
+                                            final Promise<U> composedPromise) {
+        composedPromise.onCancel(thisPromise::cancel);
+        thisPromise.whenComplete(promise -> {
+            final Result<T> result = completedResult(promise);
+            if (result.failure()) {
+                composedPromise.reject(result.cause());
+                return;
+            }
+            final Promise<U> next;
+            try {
+                next = mapper.apply(result.get());
+            } catch (Exception ex) {
+                composedPromise.reject(ex);
+                return;
+            }
+            if (next == null) {
+                composedPromise.reject(new NullPointerException("thenCompose mapper returned null"));
+                return;
+            }
+            next.whenComplete(nextPromise -> composedPromise.onResult(completedResult(nextPromise)));
+            composedPromise.onCancel(next::cancel);
+            if (next.isInvokable()) {
+                next.invoke();
+            }
+        });
+        return composedPromise;
+    }
+
+    /**
+     * The result of a promise, read from a complete listener.
+     * A blocking promise runs its listeners before it releases waiting threads, so its own accessors would block
+     * there; this reads the result directly.
+     * The result can be kept after the listener returns.
+     *
+     * @param promise completed promise
+     * @param <T>     type of result
+     * @return result
+     */
+    static <T> Result<T> completedResult(final Promise<T> promise) {
+        if (promise instanceof BasePromise) {
+            return ((BasePromise<T>) promise).result;
+        }
+        /* Copied, the promise may be a view that goes stale, like a pooled promise ref. */
+        return promise.success() ? Result.result(promise.get()) : Result.error(promise.cause());
+    }
+
+    /**
+     * @param <T> type of result
+     * @return a new failed result for a cancelled promise
+     */
+    static <T> Result<T> cancelledResult() {
+        return Result.error(new PromiseCancelledException());
+    }
+
+    static <T> T doGet(final Result<T> result) {
 
-        if (!promise.complete()) {
+        if (result == null) {
             throw new NoSuchElementException("No value present, result not returned.");
         }
-        if (promise.failure()) {
-            if (promise.cause() instanceof RuntimeException) {
-                throw (RuntimeException) promise.cause();
+        if (result.failure()) {
+            if (result.cause() instanceof RuntimeException) {
+                throw (RuntimeException) result.cause();
             } else {
-                throw new RejectedPromiseException(promise.cause());
+                throw new RejectedPromiseException(result.cause());
             }
         }
-        return result.get().get();
+        return result.get();
     }
 }
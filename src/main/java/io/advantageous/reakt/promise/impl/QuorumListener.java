@@ -0,0 +1,108 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.Promise;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Complete listener shared by all the children of a quorum or first success promise.
+ * <p>
+ * Successful children claim a slot in arrival order; once the needed number of slots are filled the parent
+ * completes. The parent fails as soon as so many children failed that the quorum can no longer be reached,
+ * with the result of the child whose failure decided it.
+ * <p>
+ * Whoever completes the parent also drops the reference to it, so children that come back later only reach
+ * this listener and do not keep the parent alive, and cancels the children that have not come back.
+ *
+ * @param <T> type of the child results
+ * @author Rick Hightower
+ */
+class QuorumListener<T> implements Consumer<Promise<T>> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<QuorumListener, Promise> PARENT =
+            AtomicReferenceFieldUpdater.newUpdater(QuorumListener.class, Promise.class, "parent");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<QuorumListener> CLAIMED =
+            AtomicIntegerFieldUpdater.newUpdater(QuorumListener.class, "claimed");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<QuorumListener> FILLED =
+            AtomicIntegerFieldUpdater.newUpdater(QuorumListener.class, "filled");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<QuorumListener> FAILED =
+            AtomicIntegerFieldUpdater.newUpdater(QuorumListener.class, "failed");
+
+    private final Promise<?>[] children;
+    private final Object[] values;
+    private final int tolerated;
+    private final boolean single;
+    private volatile Promise<Object> parent;
+    private volatile int claimed;
+    private volatile int filled;
+    private volatile int failed;
+
+    /**
+     * @param parent   completed with the value of the first success if {@code single}, else the list of values
+     * @param needed   number of children that have to succeed
+     * @param children child promises
+     * @param single   true to complete the parent with the one value instead of a list
+     */
+    @SuppressWarnings("unchecked")
+    QuorumListener(final Promise<?> parent, final int needed, final Promise<?>[] children, final boolean single) {
+        if (needed < 1 || needed > children.length) {
+            throw new IllegalArgumentException("needed must be between 1 and the number of promises, needed "
+                    + needed + ", promises " + children.length);
+        }
+        this.parent = (Promise<Object>) parent;
+        this.children = children;
+        this.values = new Object[needed];
+        this.tolerated = children.length - needed;
+        this.single = single;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(final Promise<T> childPromise) {
+        final Promise<Object> parent = this.parent;
+        if (parent == null) {
+            return;
+        }
+        final Result<T> result = PromiseUtil.completedResult(childPromise);
+        if (result.success()) {
+            final int index = CLAIMED.getAndIncrement(this);
+            if (index >= values.length) {
+                return;
+            }
+            values[index] = result.get();
+            if (FILLED.incrementAndGet(this) == values.length && PARENT.compareAndSet(this, parent, null)) {
+                parent.reply(single ? values[0] : CollectingPromise.list(values));
+                PromiseUtil.cancelAll(children);
+            }
+        } else if (FAILED.incrementAndGet(this) > tolerated && PARENT.compareAndSet(this, parent, null)) {
+            parent.onResult((Result<Object>) (Result<?>) result);
+            PromiseUtil.cancelAll(children);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Invokable;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Reactor;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Promise that comes back once {@code needed} of its child promises succeed, with their values in the order
+ * they came back. It fails as soon as too many children failed for the quorum to be reached.
+ * <p>
+ * Replay variant, so the result can be replayed in the caller's thread.
+ *
+ * @param <T> type of the child results
+ * @author Rick Hightower
+ */
+public class QuorumReplayPromise<T> extends ReplayPromiseImpl<List<T>> implements Promise<List<T>>, Invokable {
+
+    private final Promise<T>[] promises;
+    private boolean invoked;
+
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public QuorumReplayPromise(final Duration timeout,
+                               final long startTime,
+                               final int needed,
+                               final Promise<T>... promises) {
+        super(timeout, startTime);
+        this.promises = promises;
+        PromiseUtil.quorum(this, needed, promises);
+    }
+
+    @Override
+    public Promise<List<T>> invokeWithReactor(final Reactor reactor) {
+        if (invoked) {
+            throw new IllegalStateException("Promise can only be invoked once");
+        }
+        invoked = true;
+        for (Promise<?> promise : promises) {
+            if (!promise.isInvokable()) {
+                throw new IllegalStateException("QuorumReplayPromise can only be invoked if all children are invokeable");
+            }
+            promise.invoke();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isInvokable() {
+        return true;
+    }
+}
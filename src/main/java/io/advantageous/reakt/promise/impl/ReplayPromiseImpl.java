@@ -18,48 +18,53 @@
 
 package io.advantageous.reakt.promise.impl;
 
-import io.advantageous.reakt.Expected;
 import io.advantageous.reakt.Result;
+import io.advantageous.reakt.exception.PromiseTimeoutException;
 import io.advantageous.reakt.impl.ResultImpl;
 import io.advantageous.reakt.promise.Promise;
 import io.advantageous.reakt.promise.ReplayPromise;
 
 import java.time.Duration;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
+/**
+ * Replay promise. The timeout is kept as a primitive in the units of the reactor's time source (milliseconds),
+ * and replayed is a bit in the flags word, so a pending promise is a single object.
+ *
+ * @param <T> type of result
+ */
 public class ReplayPromiseImpl<T> extends BasePromise<T> implements ReplayPromise<T> {
 
-    private final Duration timeoutDuration;
+    private final long timeoutMillis;
     private final long startTime;
-    private Expected<Runnable> timeoutHandler = Expected.empty();
-    private Expected<Consumer<ReplayPromise>> afterResultProcessedHandler = Expected.empty();
-    private final AtomicBoolean replayed = new AtomicBoolean();
-
+    private volatile Runnable timeoutHandler;
+    @SuppressWarnings("rawtypes")
+    private volatile Consumer<ReplayPromise> afterResultProcessedHandler;
 
 
     public ReplayPromiseImpl(final Duration timeout, final long startTime) {
 
-        this.timeoutDuration = timeout;
+        this.timeoutMillis = timeout.toMillis();
         this.startTime = startTime;
     }
 
+    /**
+     * The result is replayed later, by whoever handles {@link #afterResultProcessed(Consumer)}.
+     */
     @Override
-    public void onResult(final Result<T> result) {
-
-        //Ensure this is only handled one time.
-        if (this.result.compareAndSet(null, result)) {
-            afterResultProcessedHandler.ifPresent(replayPromiseConsumer -> replayPromiseConsumer.accept(this));
+    @SuppressWarnings("rawtypes")
+    protected void resultSet() {
+        final Consumer<ReplayPromise> handler = afterResultProcessedHandler;
+        if (handler != null) {
+            handler.accept(this);
         }
-
     }
 
     @Override
     public boolean checkTimeout(final long time) {
 
         if (!complete()) {
-            if ((time - startTime) > timeoutDuration.toMillis()) {
+            if ((time - startTime) > timeoutMillis) {
                 handleTimeout(time);
                 return true;
             } else {
@@ -76,31 +81,33 @@ public class ReplayPromiseImpl<T> extends BasePromise<T> implements ReplayPromis
     }
 
     private void handleTimeout(long time) {
-        timeoutHandler.ifPresent(Runnable::run);
-        result.set(new ResultImpl<>(
-                new TimeoutException(String.format("Operation timed out start time %d timeout " +
-                                "duration ms %d time %d elapsed time %d",
-                        startTime, timeoutDuration.toMillis(), time, time - startTime))));
-        replay();
+        final Runnable handler = timeoutHandler;
+        if (handler != null) {
+            handler.run();
+        }
+        if (abandon(new ResultImpl<>(new PromiseTimeoutException(startTime, timeoutMillis, time)))) {
+            replay();
+        }
     }
 
     @Override
-    public synchronized ReplayPromise<T> onTimeout(final Runnable handler) {
-        timeoutHandler = Expected.of(handler);
+    public ReplayPromise<T> onTimeout(final Runnable handler) {
+        timeoutHandler = handler;
         return this;
     }
 
     @Override
-    public synchronized ReplayPromise<T> afterResultProcessed(Consumer<ReplayPromise> handler) {
-        afterResultProcessedHandler = Expected.of(handler);
+    @SuppressWarnings("rawtypes")
+    public ReplayPromise<T> afterResultProcessed(Consumer<ReplayPromise> handler) {
+        afterResultProcessedHandler = handler;
         return this;
     }
 
 
     @Override
     public void replay() {
-        if (replayed.compareAndSet(false, true)) {
-            handleResultPresent(result.get());
+        if (setFlag(REPLAYED)) {
+            handleResultPresent(result);
         }
     }
 
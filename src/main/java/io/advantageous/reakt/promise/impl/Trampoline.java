@@ -0,0 +1,110 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runs the continuations of promises completed on this thread one after the other instead of nesting them.
+ * <p>
+ * A continuation often completes another promise: a {@code thenMap} stage replies to the mapped promise, which
+ * replies to the next stage, and so on. Dispatching each completion on the spot nests one set of stack frames per
+ * stage, so a long chain completed synchronously overflows the stack. The trampoline runs the first completion on
+ * the spot and queues any completion made while it runs, so the chain runs in one flat loop at constant depth.
+ * <p>
+ * If a continuation throws, the rest of the queue still runs, so no promise is left with its continuations
+ * unrun. An exception from the promise that started the loop is rethrown to the caller that completed it, as it
+ * would be without the trampoline. An exception from a queued promise belongs to no caller, so it is reported
+ * through that promise, see {@link ContinuationStack#continuationFailed(RuntimeException)}.
+ * Errors are not caught, but the completions already queued still run before the error propagates.
+ *
+ * @author Rick Hightower
+ */
+final class Trampoline {
+
+    private static final ThreadLocal<Trampoline> CURRENT = ThreadLocal.withInitial(Trampoline::new);
+
+    private final ArrayDeque<ContinuationStack> pending = new ArrayDeque<>();
+    private boolean running;
+
+    private Trampoline() {
+    }
+
+    /**
+     * Runs the continuations of a completed promise, now or, if this thread is already running continuations,
+     * once they return.
+     *
+     * @param completed completed promise
+     */
+    static void dispatch(final ContinuationStack completed) {
+        final Trampoline trampoline = CURRENT.get();
+        if (trampoline.running) {
+            trampoline.pending.add(completed);
+            return;
+        }
+        trampoline.run(completed);
+    }
+
+    /**
+     * @return number of completions waiting on this thread, for tests
+     */
+    static int pending() {
+        return CURRENT.get().pending.size();
+    }
+
+    private void run(final ContinuationStack first) {
+        running = true;
+        try {
+            first.runContinuations();
+        } finally {
+            try {
+                drain();
+            } finally {
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Runs the queued completions, including any queued while they run.
+     * An error does not stop the queue: it is thrown once the queue is empty.
+     */
+    private void drain() {
+        Error error = null;
+        ContinuationStack completed = pending.poll();
+        while (completed != null) {
+            try {
+                completed.runContinuations();
+            } catch (RuntimeException ex) {
+                completed.continuationFailed(ex);
+            } catch (Error ex) {
+                if (error == null) {
+                    error = ex;
+                } else {
+                    error.addSuppressed(ex);
+                }
+            }
+            completed = pending.poll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import java.time.Duration;
+
+/**
+ * A {@link TimeSource} that hands out a cached, monotonic time updated by a ticker thread.
+ * <p>
+ * Hot paths such as {@link Reactor#promise()} only read a field instead of calling the system clock.
+ * The time is at most one resolution behind.
+ * <pre>
+ * <code>
+ *     final CachedTimeSource clock = TimeSource.cachedClock(Duration.ofMillis(1));
+ *     final Reactor reactor = ReactorBuilder.reactorBuilder().setTimeSource(clock).build();
+ *     ...
+ *     clock.close();
+ * </code>
+ * </pre>
+ *
+ * @author Rick Hightower
+ */
+public interface CachedTimeSource extends TimeSource, AutoCloseable {
+
+    /**
+     * @return how often the time is updated
+     */
+    Duration resolution();
+
+    /**
+     * Stops the ticker thread. The time stops moving.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.reactor.impl.BackoffIdleStrategy;
+import io.advantageous.reakt.reactor.impl.BusySpinIdleStrategy;
+import io.advantageous.reakt.reactor.impl.ParkingIdleStrategy;
+import io.advantageous.reakt.reactor.impl.YieldingIdleStrategy;
+
+import java.time.Duration;
+
+/**
+ * What a thread that drives a reactor does between ticks.
+ * <p>
+ * The strategy is told how much work the last tick did ({@link Reactor#process()}), so it can keep going while
+ * there is work and back off when there is none. This trades CPU for latency: busy spin has the lowest latency
+ * and burns a core, parking uses almost no CPU and adds wake up latency.
+ * <p>
+ * Strategies can hold state, so use one instance per thread.
+ *
+ * @author Rick Hightower
+ */
+public interface IdleStrategy {
+
+    /**
+     * Never gives up the CPU. Lowest latency, uses a whole core.
+     *
+     * @return busy spin strategy
+     */
+    static IdleStrategy busySpin() {
+        return new BusySpinIdleStrategy();
+    }
+
+    /**
+     * Yields the thread when idle.
+     *
+     * @return yielding strategy
+     */
+    static IdleStrategy yielding() {
+        return new YieldingIdleStrategy();
+    }
+
+    /**
+     * Parks for a fixed time when idle.
+     *
+     * @param parkTime time to park
+     * @return parking strategy
+     */
+    static IdleStrategy parking(final Duration parkTime) {
+        return new ParkingIdleStrategy(parkTime.toNanos());
+    }
+
+    /**
+     * Spins, then yields, then parks with an exponentially growing park time while the reactor stays idle.
+     * Any work resets it back to spinning.
+     *
+     * @param maxSpins    spins before yielding
+     * @param maxYields   yields before parking
+     * @param minParkTime first park time
+     * @param maxParkTime longest park time
+     * @return backoff strategy
+     */
+    static IdleStrategy backoff(final int maxSpins, final int maxYields,
+                                final Duration minParkTime, final Duration maxParkTime) {
+        return new BackoffIdleStrategy(maxSpins, maxYields, minParkTime.toNanos(), maxParkTime.toNanos());
+    }
+
+    /**
+     * Backoff with defaults: 100 spins, 10 yields, then parks from 1 microsecond up to 1 millisecond.
+     *
+     * @return backoff strategy
+     */
+    static IdleStrategy backoff() {
+        return backoff(100, 10, Duration.ofNanos(1_000), Duration.ofMillis(1));
+    }
+
+    /**
+     * Called after each tick.
+     *
+     * @param workCount amount of work the tick did, zero if the reactor was idle
+     */
+    void idle(int workCount);
+
+    /**
+     * Resets any backoff state.
+     */
+    default void reset() {
+    }
+}
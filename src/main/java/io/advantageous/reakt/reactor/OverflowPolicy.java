@@ -0,0 +1,41 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+/**
+ * What a reactor queue does when a producer adds to it and it is full.
+ * <p>
+ * Whatever the policy, the reactor thread never blocks on its own queues. If the reactor thread is the
+ * producer and the queue is full, the item is kept in a backlog that only the reactor thread touches.
+ *
+ * @author Rick Hightower
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The producer waits (spin, then yield, then park) until the reactor frees a slot.
+     * This is back pressure on the threads that complete promises.
+     */
+    BLOCK,
+
+    /**
+     * The producer gets an {@code IllegalStateException}.
+     */
+    FAIL
+}
@@ -0,0 +1,49 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+/**
+ * Priority lane of promise replies and deferred runs.
+ * <p>
+ * Each lane has its own queue. A tick hands each lane a share of the phase budget in proportion to its weight,
+ * highest priority first, and any budget a lane does not use goes to the other lanes. Under load, control plane
+ * work (heartbeats, leader election) is replayed before bulk data plane replies without starving them.
+ *
+ * @author Rick Hightower
+ * @see ReactorBuilder#setPriorityWeight(Priority, int)
+ */
+public enum Priority {
+
+    HIGH(8),
+    NORMAL(4),
+    LOW(1);
+
+    private final int defaultWeight;
+
+    Priority(final int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * @return the weight used unless the builder overrides it
+     */
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+}
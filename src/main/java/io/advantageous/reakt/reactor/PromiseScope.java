@@ -0,0 +1,103 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.promise.Promise;
+
+import java.time.Duration;
+
+/**
+ * Owns the child promises of one request, so a fan-out does not outlive the request that started it.
+ * <p>
+ * Children are created by the scope, or added to it. {@link #all()} fails fast: the first child that fails
+ * fails it and closes the scope. {@link #allSettled()} waits for every child.
+ * {@link #close()} cancels the children that are still outstanding, which runs their cancel hooks and drops
+ * their late replies, and children whose replies are queued in the reactor but not yet replayed are skipped.
+ * <pre>
+ * <code>
+ *     final PromiseScope scope = reactor.scope();
+ *     userService.load(scope.promise().then(...));
+ *     scope.add(Promises.invokablePromise(promise -&gt; auditService.check(promise))).invoke();
+ *     scope.all().catchError(error -&gt; returnPromise.reject(error)).then(v -&gt; returnPromise.resolve());
+ * </code>
+ * </pre>
+ * A scope only holds on to children that are still outstanding, so it can live as long as a connection or a
+ * session and be closed when that ends.
+ * A scope is meant to be used from the reactor thread, like the handlers of the promises it owns.
+ *
+ * @author Rick Hightower
+ */
+public interface PromiseScope extends AutoCloseable {
+
+    /**
+     * Create a child promise with the reactor's default timeout.
+     *
+     * @param <T> type of result
+     * @return new promise, cancelled if the scope is closed
+     */
+    <T> Promise<T> promise();
+
+    /**
+     * Create a child promise with a timeout.
+     *
+     * @param timeout timeout
+     * @param <T>     type of result
+     * @return new promise, cancelled if the scope is closed
+     */
+    <T> Promise<T> promise(Duration timeout);
+
+    /**
+     * Adds a promise that was created elsewhere, for example an invokable promise, to the scope.
+     * It is cancelled right away if the scope is already closed.
+     *
+     * @param promise promise
+     * @param <P>     type of promise
+     * @return the promise
+     */
+    <P extends Promise<?>> P add(P promise);
+
+    /**
+     * Waits for the children that are outstanding when it is called; children added afterwards are not waited
+     * for. Fails with the first child of the scope that fails, even one that failed before this call, and then
+     * closes the scope.
+     *
+     * @return promise that completes when every child succeeded
+     */
+    Promise<Void> all();
+
+    /**
+     * Waits for the children that are outstanding when it is called to complete, successfully or not; children
+     * added afterwards are not waited for. Does not fail because a child failed.
+     *
+     * @return promise that completes when every child completed
+     */
+    Promise<Void> allSettled();
+
+    /**
+     * @return true once the scope is closed
+     */
+    boolean closed();
+
+    /**
+     * Cancels the outstanding children and the pending {@link #all()} and {@link #allSettled()} promises,
+     * and drops child replies the reactor has not replayed yet. Later calls do nothing.
+     */
+    @Override
+    void close();
+}
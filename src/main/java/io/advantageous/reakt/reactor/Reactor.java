@@ -19,6 +19,10 @@
 package io.advantageous.reakt.reactor;
 
 import io.advantageous.reakt.CallbackHandle;
+import io.advantageous.reakt.promise.BooleanPromise;
+import io.advantageous.reakt.promise.DoublePromise;
+import io.advantageous.reakt.promise.IntPromise;
+import io.advantageous.reakt.promise.LongPromise;
 import io.advantageous.reakt.promise.Promise;
 import io.advantageous.reakt.promise.PromiseHandle;
 import io.advantageous.reakt.promise.impl.InvokerPromise;
@@ -84,6 +88,25 @@ public interface Reactor {
 
     <T> Promise<T> promise(Duration timeout);
 
+    /**
+     * Create a promise whose reply is replayed in a priority lane.
+     *
+     * @param priority lane the reply is replayed in
+     * @param <T>      type of result
+     * @return new promise
+     */
+    <T> Promise<T> promise(Priority priority);
+
+    /**
+     * Create a promise with a timeout whose reply is replayed in a priority lane.
+     *
+     * @param priority lane the reply is replayed in
+     * @param timeout  timeout
+     * @param <T>      type of result
+     * @return new promise
+     */
+    <T> Promise<T> promise(Priority priority, Duration timeout);
+
 
     /**
      * All promises must complete.
@@ -159,20 +182,35 @@ public interface Reactor {
     <T> Promise<Void> any(final Duration timeout, final List<Promise<T>> promises);
 
     /**
-     * Add a repeating task that will run every interval
+     * Add a repeating task that will run every interval.
+     * The task runs on the next call to {@code process()}, and then the interval after each run
+     * ({@link RepeatMode#FIXED_DELAY}).
+     *
+     * @param interval duration of interval
+     * @param runnable runnable to run.
+     * @return handle to cancel the task
+     */
+    TaskHandle addRepeatingTask(final Duration interval, final Runnable runnable);
+
+    /**
+     * Add a repeating task that will run every interval.
+     * The task runs on the next call to {@code process()}, and then according to the repeat mode.
      *
      * @param interval duration of interval
+     * @param mode     fixed delay or fixed rate
      * @param runnable runnable to run.
+     * @return handle to cancel the task
      */
-    void addRepeatingTask(final Duration interval, final Runnable runnable);
+    TaskHandle addRepeatingTask(final Duration interval, final RepeatMode mode, final Runnable runnable);
 
     /**
      * Add a task that will run once after the interval.
      *
      * @param afterInterval duration of interval
      * @param runnable      runnable to run.
+     * @return handle to cancel the task
      */
-    void runTaskAfter(final Duration afterInterval, final Runnable runnable);
+    TaskHandle runTaskAfter(final Duration afterInterval, final Runnable runnable);
 
     /**
      * Run on this Reactor's thread as soon as you can.
@@ -181,10 +219,68 @@ public interface Reactor {
      */
     void deferRun(final Runnable runnable);
 
+    /**
+     * Run on this Reactor's thread as soon as you can, in a priority lane.
+     *
+     * @param priority lane
+     * @param runnable runnable
+     */
+    void deferRun(final Priority priority, final Runnable runnable);
+
+    /**
+     * Gets or creates a tenant with weight 1 in the {@link Priority#NORMAL} lane.
+     *
+     * @param id tenant id
+     * @return tenant
+     */
+    Tenant tenant(final String id);
+
+    /**
+     * Gets or creates a tenant. If the tenant already exists it is returned as it is.
+     *
+     * @param id       tenant id
+     * @param weight   share of the lane relative to other tenants in the lane
+     * @param priority lane the tenant's work is drained in
+     * @return tenant
+     */
+    Tenant tenant(final String id, final int weight, final Priority priority);
+
+    /**
+     * Creates a scope that owns the promises of one fan-out. Closing the scope cancels the children that are
+     * still outstanding and drops replies that are queued but not yet replayed.
+     *
+     * @return new scope
+     */
+    PromiseScope scope();
+
     /**
      * Allows the reactor to process its tasks, and promises (callbacks).
+     *
+     * @return amount of work done: deferred runs, tasks and promise replays. Zero means the reactor was idle.
      */
-    void process();
+    int process();
+
+    /**
+     * Tells if the last {@link #process()} left work behind because it ran out of budget, or if new work arrived
+     * since. A runner can use this to tick again right away instead of idling.
+     * Must only be called from the thread that drives this reactor.
+     *
+     * @return true if deferred runs, replies or due tasks are waiting
+     */
+    boolean workRemaining();
+
+    /**
+     * Processes like {@link #process()}, and if there was nothing to do, parks the calling thread until there is.
+     * <p>
+     * The thread wakes up when a promise reply or a deferred run arrives, when the next task or timeout check
+     * is due, or when {@code maxWait} has passed. Wake ups are coalesced: a burst of replies that arrives while
+     * the thread is parked unparks it once.
+     * Must only be called from the thread that drives this reactor.
+     *
+     * @param maxWait longest time to park
+     * @return amount of work done
+     */
+    int processOrAwait(final Duration maxWait);
 
     /**
      * Returns a String promise
@@ -237,6 +333,37 @@ public interface Reactor {
      */
     Promise<Boolean> promiseBoolean();
 
+    /**
+     * Int promise whose handlers run on the reactor thread, without boxing.
+     * The promise hands itself to {@link #deferRun(Runnable)} when it completes, so replying does not allocate.
+     * Unlike {@link #promiseInt()} it has no timeout.
+     *
+     * @return new int promise
+     */
+    IntPromise intPromise();
+
+    /**
+     * Long promise whose handlers run on the reactor thread, without boxing. See {@link #intPromise()}.
+     *
+     * @return new long promise
+     */
+    LongPromise longPromise();
+
+    /**
+     * Double promise whose handlers run on the reactor thread, without boxing. See {@link #intPromise()}.
+     *
+     * @return new double promise
+     */
+    DoublePromise doublePromise();
+
+    /**
+     * Boolean promise whose handlers run on the reactor thread, without allocating a result.
+     * See {@link #intPromise()}.
+     *
+     * @return new boolean promise
+     */
+    BooleanPromise booleanPromise();
+
 
     /**
      * Generic promise.
@@ -0,0 +1,307 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.reactor.impl.ReactorImpl;
+
+import java.time.Duration;
+
+/**
+ * Builds a {@link Reactor}.
+ * <p>
+ * Use this instead of {@link Reactor#reactor()} when you need to tune the reactor.
+ * <pre>
+ * <code>
+ *     final Reactor reactor = ReactorBuilder.reactorBuilder()
+ *          .setDefaultTimeout(Duration.ofSeconds(10))
+ *          .setQueueCapacity(64 * 1024)
+ *          .setOverflowPolicy(OverflowPolicy.FAIL)
+ *          .setReplyBudget(1_000)
+ *          .build();
+ * </code>
+ * </pre>
+ *
+ * @author Rick Hightower
+ */
+public class ReactorBuilder {
+
+    /**
+     * Default capacity of each reactor queue.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16 * 1024;
+
+    /**
+     * Default capacity of each tenant's reply and deferred run queue.
+     */
+    public static final int DEFAULT_TENANT_QUEUE_CAPACITY = 1024;
+
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+    private TimeSource timeSource = System::currentTimeMillis;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int tenantQueueCapacity = DEFAULT_TENANT_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private int deferRunBudget = Integer.MAX_VALUE;
+    private int taskBudget = Integer.MAX_VALUE;
+    private int replyBudget = Integer.MAX_VALUE;
+    private Duration phaseTimeBudget;
+    private boolean readTimeOncePerTick;
+    private int promisePoolSize;
+    private boolean confinedPromises;
+    private final int[] priorityWeights = defaultPriorityWeights();
+
+    public static ReactorBuilder reactorBuilder() {
+        return new ReactorBuilder();
+    }
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * @param defaultTimeout timeout for promises created without a timeout
+     * @return this, fluent
+     */
+    public ReactorBuilder setDefaultTimeout(final Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+        return this;
+    }
+
+    public TimeSource getTimeSource() {
+        return timeSource;
+    }
+
+    /**
+     * The default is the wall clock, {@code System::currentTimeMillis}.
+     * See {@link TimeSource#monotonic()} and {@link TimeSource#cachedClock(Duration)}.
+     *
+     * @param timeSource time source used for timeouts and tasks
+     * @return this, fluent
+     */
+    public ReactorBuilder setTimeSource(final TimeSource timeSource) {
+        this.timeSource = timeSource;
+        return this;
+    }
+
+    public boolean isReadTimeOncePerTick() {
+        return readTimeOncePerTick;
+    }
+
+    /**
+     * When true the reactor reads the time source once at the start of each tick and uses that time for
+     * everything in the tick, including the start time of promises created until the next tick.
+     * Promise timeouts can then be up to one tick late. Off by default.
+     *
+     * @param readTimeOncePerTick read time once per tick
+     * @return this, fluent
+     */
+    public ReactorBuilder setReadTimeOncePerTick(final boolean readTimeOncePerTick) {
+        this.readTimeOncePerTick = readTimeOncePerTick;
+        return this;
+    }
+
+    public int getPromisePoolSize() {
+        return promisePoolSize;
+    }
+
+    /**
+     * Turns on promise pooling when greater than 0. Off by default.
+     * <p>
+     * {@link Reactor#promise()} and {@link Reactor#promise(Duration)} then hand out recycled promises. A promise
+     * goes back to the pool once it has been replayed and its handlers have run, so do not keep it after that:
+     * any use of a recycled promise throws {@code IllegalStateException}, and a late reply to it is dropped.
+     *
+     * @param promisePoolSize most free promises kept per reactor
+     * @return this, fluent
+     */
+    public ReactorBuilder setPromisePoolSize(final int promisePoolSize) {
+        this.promisePoolSize = promisePoolSize;
+        return this;
+    }
+
+    public boolean isConfinedPromises() {
+        return confinedPromises;
+    }
+
+    /**
+     * When true, {@link Reactor#promise()} and {@link Reactor#promise(Duration)} create promises confined to the
+     * creating thread, see {@link io.advantageous.reakt.promise.Promises#confinedReplayPromise(Duration, long)}.
+     * Only use this when promises are created and their handlers registered on the reactor thread.
+     * Promise pooling takes precedence. Off by default.
+     *
+     * @param confinedPromises use confined promises
+     * @return this, fluent
+     */
+    public ReactorBuilder setConfinedPromises(final boolean confinedPromises) {
+        this.confinedPromises = confinedPromises;
+        return this;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Capacity of each queue that hands work to the reactor thread (new promises, replies, deferred runs and tasks).
+     * Rounded up to a power of two.
+     *
+     * @param queueCapacity capacity
+     * @return this, fluent
+     */
+    public ReactorBuilder setQueueCapacity(final int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    public int getTenantQueueCapacity() {
+        return tenantQueueCapacity;
+    }
+
+    /**
+     * Capacity of the reply queue and the deferred run queue of each {@link Tenant}.
+     * Rounded up to a power of two.
+     *
+     * @param tenantQueueCapacity capacity
+     * @return this, fluent
+     */
+    public ReactorBuilder setTenantQueueCapacity(final int tenantQueueCapacity) {
+        this.tenantQueueCapacity = tenantQueueCapacity;
+        return this;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @param overflowPolicy what producers do when a reactor queue is full
+     * @return this, fluent
+     */
+    public ReactorBuilder setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public int getDeferRunBudget() {
+        return deferRunBudget;
+    }
+
+    /**
+     * Most deferred runs processed in one tick. The rest wait for the next tick.
+     * Unbounded by default.
+     *
+     * @param deferRunBudget budget, greater than 0
+     * @return this, fluent
+     */
+    public ReactorBuilder setDeferRunBudget(final int deferRunBudget) {
+        this.deferRunBudget = checkBudget(deferRunBudget);
+        return this;
+    }
+
+    public int getTaskBudget() {
+        return taskBudget;
+    }
+
+    /**
+     * Most scheduled tasks run in one tick. Tasks that are due but did not run, run on the next tick.
+     * Unbounded by default.
+     *
+     * @param taskBudget budget, greater than 0
+     * @return this, fluent
+     */
+    public ReactorBuilder setTaskBudget(final int taskBudget) {
+        this.taskBudget = checkBudget(taskBudget);
+        return this;
+    }
+
+    public int getReplyBudget() {
+        return replyBudget;
+    }
+
+    /**
+     * Most promise replies replayed in one tick, so a flood of replies cannot starve tasks and timeout checks.
+     * Unbounded by default.
+     *
+     * @param replyBudget budget, greater than 0
+     * @return this, fluent
+     */
+    public ReactorBuilder setReplyBudget(final int replyBudget) {
+        this.replyBudget = checkBudget(replyBudget);
+        return this;
+    }
+
+    public Duration getPhaseTimeBudget() {
+        return phaseTimeBudget;
+    }
+
+    /**
+     * Longest time each phase of a tick (deferred runs, tasks, replies) may take before it yields to the next
+     * phase. Checked between items, so a single slow handler can still go over.
+     * None (null) by default.
+     *
+     * @param phaseTimeBudget time budget per phase, or null for none
+     * @return this, fluent
+     */
+    public ReactorBuilder setPhaseTimeBudget(final Duration phaseTimeBudget) {
+        this.phaseTimeBudget = phaseTimeBudget;
+        return this;
+    }
+
+    public int[] getPriorityWeights() {
+        return priorityWeights.clone();
+    }
+
+    /**
+     * Share of each tick's reply and deferred run budget that a priority lane gets, relative to the other lanes.
+     * Defaults to {@link Priority#defaultWeight()}.
+     *
+     * @param priority lane
+     * @param weight   weight, greater than 0
+     * @return this, fluent
+     */
+    public ReactorBuilder setPriorityWeight(final Priority priority, final int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be greater than 0");
+        }
+        this.priorityWeights[priority.ordinal()] = weight;
+        return this;
+    }
+
+    private static int[] defaultPriorityWeights() {
+        final Priority[] priorities = Priority.values();
+        final int[] weights = new int[priorities.length];
+        for (Priority priority : priorities) {
+            weights[priority.ordinal()] = priority.defaultWeight();
+        }
+        return weights;
+    }
+
+    private static int checkBudget(final int budget) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("budget must be greater than 0");
+        }
+        return budget;
+    }
+
+    /**
+     * @return new reactor
+     */
+    public Reactor build() {
+        return new ReactorImpl(this);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.reactor.impl.ReactorGroupImpl;
+
+import java.util.function.Supplier;
+
+/**
+ * A group of reactors, each driven by its own thread (thread per core).
+ * <p>
+ * Work is routed to a reactor (a shard) by key or round robin.
+ * Each shard only ever calls {@code process()} from its own thread, so promises created on a shard are replayed
+ * on that shard's thread and handlers keep the single threaded guarantees of a {@link Reactor}.
+ * <pre>
+ * <code>
+ *     final ReactorGroup group = ReactorGroup.reactorGroup(Runtime.getRuntime().availableProcessors());
+ *     group.start();
+ *     group.reactorFor(userId).deferRun(() -&gt; {
+ *         // Running on the shard that owns userId.
+ *         // Promises from group.reactor() stay on this shard.
+ *         group.reactor().promise()...
+ *     });
+ * </code>
+ * </pre>
+ *
+ * @author Rick Hightower
+ */
+public interface ReactorGroup {
+
+    /**
+     * Creates a group of reactors with the default reactor settings.
+     *
+     * @param size number of reactors
+     * @return reactor group, not started
+     */
+    static ReactorGroup reactorGroup(final int size) {
+        return reactorGroup(size, ReactorBuilder.reactorBuilder());
+    }
+
+    /**
+     * Creates a group of reactors.
+     *
+     * @param size    number of reactors
+     * @param builder builder used to create each reactor
+     * @return reactor group, not started
+     */
+    static ReactorGroup reactorGroup(final int size, final ReactorBuilder builder) {
+        return new ReactorGroupImpl(size, builder);
+    }
+
+    /**
+     * Creates a group of reactors with a custom idle strategy for the shard threads.
+     * The default is {@link IdleStrategy#backoff()}.
+     *
+     * @param size         number of reactors
+     * @param builder      builder used to create each reactor
+     * @param idleStrategy creates one idle strategy per shard thread
+     * @return reactor group, not started
+     */
+    static ReactorGroup reactorGroup(final int size, final ReactorBuilder builder,
+                                     final Supplier<IdleStrategy> idleStrategy) {
+        return new ReactorGroupImpl(size, builder, idleStrategy);
+    }
+
+    /**
+     * @return number of reactors in the group
+     */
+    int size();
+
+    /**
+     * @param index index of the shard, 0 to size - 1
+     * @return the reactor at that index
+     */
+    Reactor reactor(int index);
+
+    /**
+     * Routes by key with a consistent hash. The same key always maps to the same reactor.
+     *
+     * @param key key, for example a user or session id
+     * @return reactor that owns the key
+     */
+    Reactor reactorFor(Object key);
+
+    /**
+     * @return the next reactor, round robin
+     */
+    Reactor next();
+
+    /**
+     * @return the reactor whose thread is calling, or null if not called from one of this group's threads
+     */
+    Reactor current();
+
+    /**
+     * The reactor to use for new work.
+     * Called from a shard thread it returns that shard, so {@code promise()} calls made from a shard stay on it.
+     * Called from any other thread it returns the next reactor, round robin.
+     *
+     * @return reactor
+     */
+    default Reactor reactor() {
+        final Reactor current = current();
+        return current != null ? current : next();
+    }
+
+    /**
+     * Starts a thread for each reactor.
+     */
+    void start();
+
+    /**
+     * Stops the reactor threads and waits for them to exit.
+     */
+    void stop();
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.reactor.impl.ReactorRunnerImpl;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Drives a reactor from a dedicated thread, so you do not have to write a loop around {@link Reactor#process()}.
+ * <p>
+ * After each tick the runner hands the amount of work done to an {@link IdleStrategy}, which decides whether to
+ * spin, yield or park before the next tick.
+ * <pre>
+ * <code>
+ *     final ReactorRunner runner = ReactorRunner.reactorRunner(reactor, IdleStrategy.backoff());
+ *     runner.start();
+ *     ...
+ *     runner.stop();
+ * </code>
+ * </pre>
+ *
+ * @author Rick Hightower
+ */
+public interface ReactorRunner {
+
+    /**
+     * Creates a runner that uses a daemon thread.
+     *
+     * @param reactor      reactor to drive
+     * @param idleStrategy what to do between ticks
+     * @return runner, not started
+     */
+    static ReactorRunner reactorRunner(final Reactor reactor, final IdleStrategy idleStrategy) {
+        return new ReactorRunnerImpl(reactor, idleStrategy, null);
+    }
+
+    /**
+     * Creates a runner.
+     *
+     * @param reactor       reactor to drive
+     * @param idleStrategy  what to do between ticks
+     * @param threadFactory creates the thread that drives the reactor
+     * @return runner, not started
+     */
+    static ReactorRunner reactorRunner(final Reactor reactor, final IdleStrategy idleStrategy,
+                                       final ThreadFactory threadFactory) {
+        return new ReactorRunnerImpl(reactor, idleStrategy, threadFactory);
+    }
+
+    /**
+     * @return the reactor this runner drives
+     */
+    Reactor reactor();
+
+    /**
+     * Starts the thread. Does nothing if already running.
+     */
+    void start();
+
+    /**
+     * Stops the thread and waits for it to exit.
+     */
+    void stop();
+
+    /**
+     * @return true if the runner has been started and not stopped
+     */
+    boolean running();
+}
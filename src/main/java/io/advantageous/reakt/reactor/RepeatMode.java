@@ -0,0 +1,39 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+/**
+ * How a repeating task is rescheduled after it runs.
+ *
+ * @author Rick Hightower
+ */
+public enum RepeatMode {
+
+    /**
+     * The next run is one interval after the reactor ran the task.
+     * Late runs push every later run back.
+     */
+    FIXED_DELAY,
+
+    /**
+     * The next run is one interval after the previous scheduled time.
+     * Late runs are caught up, at most one run per reactor tick.
+     */
+    FIXED_RATE
+}
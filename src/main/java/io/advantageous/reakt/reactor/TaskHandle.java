@@ -0,0 +1,43 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+/**
+ * Handle to a task scheduled with a {@link Reactor}.
+ * <p>
+ * Returned from {@link Reactor#runTaskAfter(java.time.Duration, Runnable)} and
+ * {@link Reactor#addRepeatingTask(java.time.Duration, Runnable)} so the task can be cancelled.
+ *
+ * @author Rick Hightower
+ */
+public interface TaskHandle {
+
+    /**
+     * Cancels the task. A cancelled task will not run again.
+     * If the task is running when it is cancelled, that run is allowed to finish.
+     * <p>
+     * This can be called from any thread.
+     */
+    void cancel();
+
+    /**
+     * @return true if {@code cancel()} was called
+     */
+    boolean cancelled();
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor;
+
+import io.advantageous.reakt.promise.Promise;
+
+import java.time.Duration;
+
+/**
+ * A tenant of a shared {@link Reactor}.
+ * <p>
+ * Promise replies and deferred runs created through a tenant go to the tenant's own queues inside its
+ * priority lane. The reactor drains tenants by weighted deficit round robin, so a tenant that floods the reactor
+ * builds up its own backlog and only degrades its own latency.
+ * <pre>
+ * <code>
+ *     final Tenant acme = reactor.tenant("acme");
+ *     acme.promise().then(...).invoke...
+ *     acme.deferRun(() -&gt; ...);
+ *     logger.info("acme replies waiting {}, average wait {}", acme.replyQueueDepth(), acme.averageReplyWait());
+ * </code>
+ * </pre>
+ *
+ * @author Rick Hightower
+ */
+public interface Tenant {
+
+    /**
+     * @return tenant id
+     */
+    String id();
+
+    /**
+     * @return share of its lane relative to other tenants in the lane
+     */
+    int weight();
+
+    /**
+     * @return lane the tenant's work is drained in
+     */
+    Priority priority();
+
+    /**
+     * Create a promise whose reply is queued for this tenant.
+     *
+     * @param <T> type of result
+     * @return new promise
+     */
+    <T> Promise<T> promise();
+
+    /**
+     * Create a promise with a timeout whose reply is queued for this tenant.
+     *
+     * @param timeout timeout
+     * @param <T>     type of result
+     * @return new promise
+     */
+    <T> Promise<T> promise(Duration timeout);
+
+    /**
+     * Run on the reactor's thread in this tenant's turn.
+     *
+     * @param runnable runnable
+     */
+    void deferRun(Runnable runnable);
+
+    /**
+     * @return approximate number of replies waiting to be replayed
+     */
+    int replyQueueDepth();
+
+    /**
+     * @return approximate number of deferred runs waiting to run
+     */
+    int deferRunQueueDepth();
+
+    /**
+     * @return average time a reply waited in the tenant's queue before it was replayed
+     */
+    Duration averageReplyWait();
+
+    /**
+     * @return longest time a reply waited in the tenant's queue before it was replayed
+     */
+    Duration maxReplyWait();
+
+    /**
+     * @return average time a deferred run waited in the tenant's queue before it ran
+     */
+    Duration averageDeferRunWait();
+
+    /**
+     * @return longest time a deferred run waited in the tenant's queue before it ran
+     */
+    Duration maxDeferRunWait();
+}
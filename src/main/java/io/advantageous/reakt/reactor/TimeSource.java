@@ -18,6 +18,11 @@
 
 package io.advantageous.reakt.reactor;
 
+import io.advantageous.reakt.reactor.impl.CachedTimeSourceImpl;
+import io.advantageous.reakt.reactor.impl.MonotonicTimeSource;
+
+import java.time.Duration;
+
 /**
  * Time source for a reactor.  This interface is used so that a thread may provide time when available instead of
  * calling the system every time a check in in needed.
@@ -25,5 +30,27 @@ package io.advantageous.reakt.reactor;
  * @author Rick Hightower
  */
 public interface TimeSource {
+
+    /**
+     * Milliseconds based on {@code System.nanoTime()}, so it never goes backwards when the wall clock is adjusted.
+     * Starts at the wall clock time when created.
+     *
+     * @return monotonic time source
+     */
+    static TimeSource monotonic() {
+        return new MonotonicTimeSource();
+    }
+
+    /**
+     * Monotonic time source whose time is published by a background ticker thread every {@code resolution}.
+     * Reading it is a single volatile read. Close it to stop the ticker.
+     *
+     * @param resolution how often the ticker updates the time
+     * @return cached time source, already ticking
+     */
+    static CachedTimeSource cachedClock(final Duration resolution) {
+        return new CachedTimeSourceImpl(resolution);
+    }
+
     long getTime();
 }
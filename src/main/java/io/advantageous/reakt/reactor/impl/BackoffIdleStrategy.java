@@ -0,0 +1,111 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.IdleStrategy;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Progressive backoff: spin, then yield, then park with a park time that doubles up to a maximum.
+ * Any tick that does work resets the backoff.
+ *
+ * @author Rick Hightower
+ */
+public class BackoffIdleStrategy implements IdleStrategy {
+
+    private static final int NOT_IDLE = 0;
+    private static final int SPINNING = 1;
+    private static final int YIELDING = 2;
+    private static final int PARKING = 3;
+
+    private final int maxSpins;
+    private final int maxYields;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+
+    private int state = NOT_IDLE;
+    private int spins;
+    private int yields;
+    private long parkNanos;
+
+    public BackoffIdleStrategy(final int maxSpins, final int maxYields,
+                               final long minParkNanos, final long maxParkNanos) {
+        if (minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException("park times must be positive and minParkTime <= maxParkTime");
+        }
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+    }
+
+    @Override
+    public void idle(final int workCount) {
+        if (workCount > 0) {
+            reset();
+            return;
+        }
+        switch (state) {
+            case NOT_IDLE:
+                state = SPINNING;
+                spins++;
+                break;
+            case SPINNING:
+                if (++spins > maxSpins) {
+                    state = YIELDING;
+                    yields = 0;
+                }
+                break;
+            case YIELDING:
+                if (++yields > maxYields) {
+                    state = PARKING;
+                    parkNanos = minParkNanos;
+                } else {
+                    Thread.yield();
+                }
+                break;
+            default:
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        }
+    }
+
+    @Override
+    public void reset() {
+        state = NOT_IDLE;
+        spins = 0;
+        yields = 0;
+        parkNanos = minParkNanos;
+    }
+
+    /**
+     * @return current park time, for testing
+     */
+    long parkNanos() {
+        return parkNanos;
+    }
+
+    /**
+     * @return true if the strategy has backed off to parking, for testing
+     */
+    boolean parking() {
+        return state == PARKING;
+    }
+}
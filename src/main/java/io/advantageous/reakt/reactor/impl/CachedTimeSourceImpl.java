@@ -0,0 +1,98 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.CachedTimeSource;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cached monotonic clock. A daemon ticker thread publishes the time to a volatile field that sits on its own
+ * cache line, so readers on other cores are not slowed down by writes to neighbouring fields.
+ *
+ * @author Rick Hightower
+ */
+public class CachedTimeSourceImpl extends CachedTimeSourcePad1 implements CachedTimeSource, Runnable {
+
+    private static final AtomicInteger CLOCK_ID = new AtomicInteger();
+
+    private final MonotonicTimeSource monotonic = new MonotonicTimeSource();
+    private final Duration resolution;
+    private final long resolutionNanos;
+    private final Thread ticker;
+    private volatile boolean closed;
+
+    /**
+     * Creates the clock and starts its ticker.
+     *
+     * @param resolution how often the ticker updates the time
+     */
+    public CachedTimeSourceImpl(final Duration resolution) {
+        if (resolution.isNegative() || resolution.isZero()) {
+            throw new IllegalArgumentException("resolution must be greater than 0");
+        }
+        this.resolution = resolution;
+        this.resolutionNanos = resolution.toNanos();
+        this.time = monotonic.getTime();
+        this.ticker = new Thread(this, "reactor-clock-" + CLOCK_ID.incrementAndGet());
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public Duration resolution() {
+        return resolution;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            time = monotonic.getTime();
+            LockSupport.parkNanos(this, resolutionNanos);
+        }
+    }
+}
+
+/**
+ * Padding so the time does not share a cache line with the object header or the other fields.
+ */
+abstract class CachedTimeSourcePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class CachedTimeSourceTime extends CachedTimeSourcePad0 {
+    protected volatile long time;
+}
+
+abstract class CachedTimeSourcePad1 extends CachedTimeSourceTime {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,300 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * A set of {@link SubQueue}s drained by deficit round robin.
+ * <p>
+ * Every sub-queue with work gets {@code weight * QUANTUM} items per round. A sub-queue that empties loses its
+ * unused deficit, so an idle tenant cannot save up credit, and a busy one only waits for its own backlog.
+ * When a drain runs out of budget part way through a sub-queue's turn, the next drain resumes that turn.
+ * <p>
+ * There is always a default sub-queue for untagged work. Sub-queues are added from any thread; draining is
+ * only done by the reactor thread.
+ *
+ * @param <E> type of element
+ * @author Rick Hightower
+ */
+public class FairQueue<E> {
+
+    /**
+     * Items per unit of weight in one round.
+     */
+    static final int QUANTUM = 8;
+
+    private final ToLongFunction<? super E> enqueuedNanos;
+    private final SubQueue<E> defaultQueue;
+    private volatile SubQueue<E>[] subQueues;
+    private Thread consumerThread;
+    private int cursor;
+    private boolean resumeTurn;
+
+    /**
+     * @param capacity       capacity of the default sub-queue
+     * @param overflowPolicy what to do when a sub-queue is full
+     * @param enqueuedNanos  reads the enqueue time stamped on an element of a tracked sub-queue
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public FairQueue(final int capacity, final OverflowPolicy overflowPolicy,
+                     final ToLongFunction<? super E> enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+        this.defaultQueue = new SubQueue<>(this, new MpscArrayQueue<>(capacity, overflowPolicy), 1, false);
+        this.subQueues = new SubQueue[]{defaultQueue};
+    }
+
+    /**
+     * @return sub-queue for untagged work
+     */
+    public SubQueue<E> defaultQueue() {
+        return defaultQueue;
+    }
+
+    /**
+     * Adds a tracked sub-queue. Can be called from any thread.
+     *
+     * @param weight         share relative to the other sub-queues
+     * @param capacity       capacity of the sub-queue
+     * @param overflowPolicy what to do when the sub-queue is full
+     * @return the new sub-queue
+     */
+    public synchronized SubQueue<E> addSubQueue(final int weight, final int capacity,
+                                                final OverflowPolicy overflowPolicy) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be greater than 0");
+        }
+        final SubQueue<E> subQueue = new SubQueue<>(this, new MpscArrayQueue<>(capacity, overflowPolicy),
+                weight, true);
+        if (consumerThread != null) {
+            subQueue.queue.bindConsumer(consumerThread);
+        }
+        final SubQueue<E>[] current = subQueues;
+        final SubQueue<E>[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = subQueue;
+        subQueues = grown;
+        return subQueue;
+    }
+
+    /**
+     * Makes a thread the consumer of every sub-queue, including sub-queues added later.
+     *
+     * @param thread consumer thread
+     */
+    public synchronized void bindConsumer(final Thread thread) {
+        consumerThread = thread;
+        for (SubQueue<E> subQueue : subQueues) {
+            subQueue.queue.bindConsumer(thread);
+        }
+    }
+
+    /**
+     * Drains by deficit round robin. Only called from the reactor thread.
+     *
+     * @param consumer        receives each element
+     * @param budget          most elements to drain; with {@code Integer.MAX_VALUE} the sub-queues are drained
+     *                        until they are empty, still one quantum per round, so a burst in one sub-queue does
+     *                        not hold up the others
+     * @param timeBudgetNanos most time to spend, {@code Long.MAX_VALUE} for none
+     * @return number of elements drained
+     */
+    public int drain(final Consumer<? super E> consumer, final int budget, final long timeBudgetNanos) {
+        final SubQueue<E>[] queues = subQueues;
+        if (queues.length == 1) {
+            return defaultQueue.drain(consumer, budget, timeBudgetNanos);
+        }
+        final boolean timed = timeBudgetNanos != Long.MAX_VALUE;
+        final long start = timed ? System.nanoTime() : 0;
+        int drained = 0;
+
+        if (cursor >= queues.length) {
+            cursor = 0;
+        }
+        boolean progress = true;
+        while (drained < budget && progress) {
+            progress = false;
+            for (int visited = 0; visited < queues.length && drained < budget; visited++) {
+                final SubQueue<E> queue = queues[cursor];
+                if (queue.isEmpty()) {
+                    queue.deficit = 0;
+                    resumeTurn = false;
+                    cursor = cursor + 1 == queues.length ? 0 : cursor + 1;
+                    continue;
+                }
+                if (!resumeTurn) {
+                    queue.deficit += (long) queue.weight * QUANTUM;
+                }
+                final int limit = (int) Math.min(queue.deficit, budget - drained);
+                final int count = queue.drain(consumer, limit,
+                        timed ? timeBudgetNanos - (System.nanoTime() - start) : Long.MAX_VALUE);
+                queue.deficit -= count;
+                drained += count;
+                progress |= count > 0;
+
+                if (queue.isEmpty()) {
+                    queue.deficit = 0;
+                } else if (queue.deficit > 0) {
+                    /* Out of budget or time during this queue's turn; pick the turn up on the next drain. */
+                    resumeTurn = true;
+                    return drained;
+                }
+                resumeTurn = false;
+                cursor = cursor + 1 == queues.length ? 0 : cursor + 1;
+                if (timed && System.nanoTime() - start >= timeBudgetNanos) {
+                    return drained;
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return true if every sub-queue looks empty
+     */
+    public boolean isEmpty() {
+        for (SubQueue<E> queue : subQueues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One producer facing queue in a {@link FairQueue}, for example one tenant.
+     * A tracked sub-queue records how long its elements waited, using the time stamped on each element.
+     *
+     * @param <E> type of element
+     */
+    public static class SubQueue<E> implements Consumer<E> {
+
+        private final FairQueue<E> owner;
+        private final MpscArrayQueue<E> queue;
+        private final int weight;
+        private final boolean tracked;
+        private long deficit;
+        private Consumer<? super E> target;
+        private long drainNanos;
+        private long batchWaitNanos;
+        private long batchMaxWaitNanos;
+        private volatile long drainedCount;
+        private volatile long totalWaitNanos;
+        private volatile long maxWaitNanos;
+
+        private SubQueue(final FairQueue<E> owner, final MpscArrayQueue<E> queue,
+                         final int weight, final boolean tracked) {
+            this.owner = owner;
+            this.queue = queue;
+            this.weight = weight;
+            this.tracked = tracked;
+        }
+
+        /**
+         * Adds an element. Can be called from any thread.
+         * Elements of a tracked sub-queue must be stamped with their enqueue time first.
+         *
+         * @param element element
+         */
+        public void add(final E element) {
+            queue.add(element);
+        }
+
+        /**
+         * @return true if elements should be stamped with {@code System.nanoTime()} before they are added
+         */
+        public boolean tracked() {
+            return tracked;
+        }
+
+        public int weight() {
+            return weight;
+        }
+
+        /**
+         * @return approximate number of queued elements
+         */
+        public int depth() {
+            return queue.size();
+        }
+
+        /**
+         * @return number of elements drained so far
+         */
+        public long drainedCount() {
+            return drainedCount;
+        }
+
+        /**
+         * @return total nanoseconds drained elements waited in the queue
+         */
+        public long totalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        /**
+         * @return longest nanoseconds an element waited in the queue
+         */
+        public long maxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        boolean isEmpty() {
+            return queue.isEmpty();
+        }
+
+        int drain(final Consumer<? super E> consumer, final int limit, final long timeBudgetNanos) {
+            if (!tracked) {
+                return queue.drain(consumer, limit, timeBudgetNanos);
+            }
+            target = consumer;
+            drainNanos = System.nanoTime();
+            batchWaitNanos = 0;
+            batchMaxWaitNanos = maxWaitNanos;
+            final int count;
+            try {
+                count = queue.drain(this, limit, timeBudgetNanos);
+            } finally {
+                target = null;
+            }
+            if (count > 0) {
+                drainedCount = drainedCount + count;
+                totalWaitNanos = totalWaitNanos + batchWaitNanos;
+                maxWaitNanos = batchMaxWaitNanos;
+            }
+            return count;
+        }
+
+        /**
+         * Records the wait of one element and passes it on. Only used while draining a tracked sub-queue.
+         */
+        @Override
+        public void accept(final E element) {
+            final long wait = Math.max(0, drainNanos - owner.enqueuedNanos.applyAsLong(element));
+            batchWaitNanos += wait;
+            if (wait > batchMaxWaitNanos) {
+                batchMaxWaitNanos = wait;
+            }
+            target.accept(element);
+        }
+    }
+}
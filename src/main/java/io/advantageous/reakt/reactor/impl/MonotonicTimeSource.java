@@ -0,0 +1,37 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.TimeSource;
+
+/**
+ * Milliseconds from {@code System.nanoTime()}, anchored to the wall clock when created.
+ *
+ * @author Rick Hightower
+ */
+public class MonotonicTimeSource implements TimeSource {
+
+    private final long originMillis = System.currentTimeMillis();
+    private final long originNanos = System.nanoTime();
+
+    @Override
+    public long getTime() {
+        return originMillis + (System.nanoTime() - originNanos) / 1_000_000;
+    }
+}
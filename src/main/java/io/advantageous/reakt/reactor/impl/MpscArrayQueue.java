@@ -0,0 +1,268 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, array backed, multi-producer single-consumer queue.
+ * <p>
+ * Producers claim a slot with a CAS on the producer index and then publish the element with an ordered store.
+ * The single consumer (the reactor thread) reads slots in order and drains in batches.
+ * Nothing is allocated per element, and the producer and consumer indexes are padded onto their own
+ * cache lines so producers do not slow down the consumer.
+ * <p>
+ * When the ring is full the {@link OverflowPolicy} decides what happens.
+ * The consumer thread never blocks on its own queue: if it is the producer and the ring is full,
+ * the element goes to a consumer-local backlog which is drained after the ring.
+ *
+ * @param <E> type of element
+ * @author Rick Hightower
+ */
+public class MpscArrayQueue<E> extends MpscArrayQueuePad2 {
+
+    private static final AtomicLongFieldUpdater<MpscArrayQueueProducerIndex> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueProducerIndex.class, "producerIndex");
+    private static final AtomicLongFieldUpdater<MpscArrayQueueConsumerIndex> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscArrayQueueConsumerIndex.class, "consumerIndex");
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long MAX_PARK_NANOS = 100_000;
+    /**
+     * Elements drained between clock reads when draining with a time budget.
+     */
+    static final int TIME_CHECK_INTERVAL = 16;
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private volatile Thread consumerThread;
+    private ArrayDeque<E> backlog;
+
+    /**
+     * @param capacity       capacity, rounded up to a power of two
+     * @param overflowPolicy what to do when the queue is full
+     */
+    public MpscArrayQueue(final int capacity, final OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        final int powerOfTwo = Integer.highestOneBit(capacity) == capacity ?
+                capacity : Integer.highestOneBit(capacity) << 1;
+        this.buffer = new AtomicReferenceArray<>(powerOfTwo);
+        this.mask = powerOfTwo - 1;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Adds the element if there is room.
+     * Can be called from any thread.
+     *
+     * @param element element, not null
+     * @return false if the queue is full
+     */
+    public boolean offer(final E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        final long capacity = mask + 1;
+        long producer;
+        do {
+            producer = producerIndex;
+            if (producer - consumerIndex >= capacity) {
+                return false;
+            }
+        } while (!PRODUCER_INDEX.compareAndSet(this, producer, producer + 1));
+        buffer.lazySet((int) producer & mask, element);
+        return true;
+    }
+
+    /**
+     * Adds the element, applying the overflow policy if the queue is full.
+     * Can be called from any thread.
+     *
+     * @param element element, not null
+     * @throws IllegalStateException if the queue is full and the policy is {@link OverflowPolicy#FAIL}
+     */
+    public void add(final E element) {
+        if (offer(element)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.FAIL) {
+            throw new IllegalStateException("Queue is full, capacity " + capacity());
+        }
+        if (Thread.currentThread() == consumerThread) {
+            if (backlog == null) {
+                backlog = new ArrayDeque<>();
+            }
+            backlog.add(element);
+            return;
+        }
+        int idle = 0;
+        while (!offer(element)) {
+            if (idle < SPINS) {
+                idle++;
+            } else if (idle < SPINS + YIELDS) {
+                idle++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Makes a thread the consumer before it first polls, so that thread never blocks adding to its own full queue.
+     *
+     * @param thread consumer thread
+     */
+    public void bindConsumer(final Thread thread) {
+        consumerThread = thread;
+    }
+
+    /**
+     * Removes the next element.
+     * Only called from the consumer thread.
+     *
+     * @return next element or null if empty
+     */
+    public E poll() {
+        final Thread current = Thread.currentThread();
+        if (consumerThread != current) {
+            consumerThread = current;
+        }
+        return doPoll();
+    }
+
+    /**
+     * Removes up to {@code limit} elements and passes them to the consumer.
+     * Only called from the consumer thread.
+     *
+     * @param consumer receives each element
+     * @param limit    maximum number of elements to drain
+     * @return number of elements drained
+     */
+    public int drain(final Consumer<? super E> consumer, final int limit) {
+        return drain(consumer, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Removes up to {@code limit} elements and passes them to the consumer, stopping early once
+     * {@code timeBudgetNanos} has passed. The clock is read every {@value #TIME_CHECK_INTERVAL} elements.
+     * Only called from the consumer thread.
+     *
+     * @param consumer        receives each element
+     * @param limit           maximum number of elements to drain
+     * @param timeBudgetNanos maximum time to drain for, {@code Long.MAX_VALUE} for no time budget
+     * @return number of elements drained
+     */
+    public int drain(final Consumer<? super E> consumer, final int limit, final long timeBudgetNanos) {
+        final long start = timeBudgetNanos == Long.MAX_VALUE ? 0 : System.nanoTime();
+        final Thread current = Thread.currentThread();
+        if (consumerThread != current) {
+            consumerThread = current;
+        }
+        int count = 0;
+        while (count < limit) {
+            final E element = doPoll();
+            if (element == null) {
+                break;
+            }
+            count++;
+            consumer.accept(element);
+            if (timeBudgetNanos != Long.MAX_VALUE && count % TIME_CHECK_INTERVAL == 0
+                    && System.nanoTime() - start >= timeBudgetNanos) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private E doPoll() {
+        final long consumer = consumerIndex;
+        final int offset = (int) consumer & mask;
+        E element = buffer.get(offset);
+        if (element == null) {
+            if (consumer == producerIndex) {
+                return backlog == null ? null : backlog.poll();
+            }
+            /* A producer claimed the slot but has not published the element yet. */
+            do {
+                element = buffer.get(offset);
+            } while (element == null);
+        }
+        buffer.lazySet(offset, null);
+        CONSUMER_INDEX.lazySet(this, consumer + 1);
+        return element;
+    }
+
+    /**
+     * Approximate number of elements in the ring.
+     *
+     * @return size
+     */
+    public int size() {
+        final long size = producerIndex - consumerIndex;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return true if the ring looks empty
+     */
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex && (backlog == null || backlog.isEmpty());
+    }
+
+    /**
+     * @return capacity of the ring
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
+
+/**
+ * Padding so the producer index does not share a cache line with the object header or the consumer index.
+ */
+abstract class MpscArrayQueuePad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class MpscArrayQueueProducerIndex extends MpscArrayQueuePad0 {
+    protected volatile long producerIndex;
+}
+
+abstract class MpscArrayQueuePad1 extends MpscArrayQueueProducerIndex {
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscArrayQueueConsumerIndex extends MpscArrayQueuePad1 {
+    protected volatile long consumerIndex;
+}
+
+abstract class MpscArrayQueuePad2 extends MpscArrayQueueConsumerIndex {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import io.advantageous.reakt.reactor.Priority;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * One {@link FairQueue} per {@link Priority}, drained by weighted share.
+ * <p>
+ * A drain first gives each lane, highest first, {@code budget * weight / totalWeight} items (at least one).
+ * Budget left over by lanes that ran dry is then handed out again in priority order, so no budget is wasted
+ * while any lane has work. With an unbounded budget the lanes are simply drained highest first.
+ * Inside a lane, tenants share the lane's budget by deficit round robin.
+ *
+ * @param <E> type of element
+ * @author Rick Hightower
+ */
+public class PriorityLanes<E> {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final FairQueue<E>[] lanes;
+    private final int[] weights;
+    private final int totalWeight;
+
+    /**
+     * @param capacity       capacity of each lane
+     * @param overflowPolicy what to do when a lane is full
+     * @param weights        weight of each lane, indexed by {@link Priority#ordinal()}
+     * @param enqueuedNanos  reads the enqueue time stamped on elements of tenant sub-queues
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PriorityLanes(final int capacity, final OverflowPolicy overflowPolicy, final int[] weights,
+                         final ToLongFunction<? super E> enqueuedNanos) {
+        this.lanes = new FairQueue[PRIORITIES.length];
+        this.weights = weights.clone();
+        int total = 0;
+        for (int index = 0; index < lanes.length; index++) {
+            if (weights[index] <= 0) {
+                throw new IllegalArgumentException("weight of " + PRIORITIES[index] + " must be greater than 0");
+            }
+            lanes[index] = new FairQueue<>(capacity, overflowPolicy, enqueuedNanos);
+            total += weights[index];
+        }
+        this.totalWeight = total;
+    }
+
+    /**
+     * Adds to a lane. Can be called from any thread.
+     *
+     * @param priority lane
+     * @param element  element
+     */
+    public void add(final Priority priority, final E element) {
+        lanes[priority.ordinal()].defaultQueue().add(element);
+    }
+
+    /**
+     * @param priority lane
+     * @return the fair queue of that lane
+     */
+    public FairQueue<E> lane(final Priority priority) {
+        return lanes[priority.ordinal()];
+    }
+
+    /**
+     * Makes a thread the consumer of every lane.
+     *
+     * @param thread consumer thread
+     */
+    public void bindConsumer(final Thread thread) {
+        for (FairQueue<E> lane : lanes) {
+            lane.bindConsumer(thread);
+        }
+    }
+
+    /**
+     * Drains the lanes by weighted share. Only called from the consumer thread.
+     *
+     * @param consumer        receives each element
+     * @param budget          most elements to drain across all lanes
+     * @param timeBudgetNanos most time to spend, {@code Long.MAX_VALUE} for none
+     * @return number of elements drained
+     */
+    public int drain(final Consumer<? super E> consumer, final int budget, final long timeBudgetNanos) {
+        final boolean timed = timeBudgetNanos != Long.MAX_VALUE;
+        final long start = timed ? System.nanoTime() : 0;
+        int drained = 0;
+
+        if (budget != Integer.MAX_VALUE) {
+            for (int index = 0; index < lanes.length && drained < budget; index++) {
+                final int share = (int) Math.max(1, (long) budget * weights[index] / totalWeight);
+                drained += lanes[index].drain(consumer, Math.min(share, budget - drained),
+                        timed ? timeBudgetNanos - (System.nanoTime() - start) : Long.MAX_VALUE);
+                if (timed && System.nanoTime() - start >= timeBudgetNanos) {
+                    return drained;
+                }
+            }
+        }
+
+        for (int index = 0; index < lanes.length && drained < budget; index++) {
+            drained += lanes[index].drain(consumer, budget - drained,
+                    timed ? timeBudgetNanos - (System.nanoTime() - start) : Long.MAX_VALUE);
+            if (timed && System.nanoTime() - start >= timeBudgetNanos) {
+                return drained;
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return true if every lane looks empty
+     */
+    public boolean isEmpty() {
+        for (FairQueue<E> lane : lanes) {
+            if (!lane.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.impl.PooledReplayPromise;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Free list of pooled replay promises, each with the timeout wheel entry it keeps for life.
+ * <p>
+ * Only the reactor thread takes from and returns to the free list, so it needs no synchronization.
+ * Promises created on other threads are new, and join the free list when they are released.
+ *
+ * @author Rick Hightower
+ */
+public class PromisePool {
+
+    private final ArrayDeque<TimeoutWheel.Entry> free = new ArrayDeque<>();
+    private final int maxSize;
+    private final Consumer<TimeoutWheel.Entry> wire;
+
+    /**
+     * @param maxSize most free promises kept
+     * @param wire    wires a new promise to the reactor, for example its after result processed handler
+     */
+    public PromisePool(final int maxSize, final Consumer<TimeoutWheel.Entry> wire) {
+        this.maxSize = maxSize;
+        this.wire = wire;
+    }
+
+    /**
+     * @param onReactorThread true if called from the reactor thread, which may take from the free list
+     * @return a free entry whose promise is ready to be acquired
+     */
+    public TimeoutWheel.Entry acquire(final boolean onReactorThread) {
+        if (onReactorThread) {
+            final TimeoutWheel.Entry entry = free.poll();
+            if (entry != null) {
+                return entry;
+            }
+        }
+        final TimeoutWheel.Entry entry = new TimeoutWheel.Entry(new PooledReplayPromise<>(), 0);
+        wire.accept(entry);
+        return entry;
+    }
+
+    /**
+     * Recycles an entry whose promise has been replayed. Only called from the reactor thread.
+     *
+     * @param entry entry
+     */
+    public void release(final TimeoutWheel.Entry entry) {
+        ((PooledReplayPromise<?>) entry.promise()).release();
+        if (free.size() < maxSize) {
+            free.push(entry);
+        }
+    }
+
+    /**
+     * @return number of free promises
+     */
+    public int size() {
+        return free.size();
+    }
+}
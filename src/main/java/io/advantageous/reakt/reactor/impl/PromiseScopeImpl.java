@@ -0,0 +1,154 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.impl.CollectingPromise;
+import io.advantageous.reakt.reactor.PromiseScope;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Scope of a {@link ReactorImpl}.
+ * <p>
+ * Children created by the scope keep their {@link TimeoutWheel.Entry}, so closing the scope can mark the entry
+ * dropped and the reactor skips the replay if the reply is already queued.
+ * A child and its entry are forgotten once the child completes, so a long lived scope only holds the children
+ * that are still outstanding. The first failure is remembered, so {@link #all()} still fails fast for a child
+ * that failed before it was called.
+ * Children can be added and the scope closed from any thread; a child added while the scope closes is
+ * cancelled by one side or the other.
+ *
+ * @author Rick Hightower
+ */
+public class PromiseScopeImpl implements PromiseScope {
+
+    private static final AtomicIntegerFieldUpdater<PromiseScopeImpl> CLOSED =
+            AtomicIntegerFieldUpdater.newUpdater(PromiseScopeImpl.class, "closed");
+
+    private final ReactorImpl reactor;
+    private final Set<Promise<?>> children = ConcurrentHashMap.newKeySet();
+    private final Set<TimeoutWheel.Entry> entries = ConcurrentHashMap.newKeySet();
+    private final Set<Promise<?>> joins = ConcurrentHashMap.newKeySet();
+    private volatile Throwable firstFailure;
+    private volatile int closed;
+
+    PromiseScopeImpl(final ReactorImpl reactor) {
+        this.reactor = reactor;
+    }
+
+    @Override
+    public <T> Promise<T> promise() {
+        return promise(reactor.defaultTimeout());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Promise<T> promise(final Duration timeout) {
+        final TimeoutWheel.Entry entry = reactor.scopedEntry(timeout);
+        final Promise<T> promise = (Promise<T>) entry.promise();
+        entries.add(entry);
+        promise.whenComplete(child -> entries.remove(entry));
+        if (closed == 1) {
+            entry.dropped = true;
+        }
+        return add(promise);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <P extends Promise<?>> P add(final P promise) {
+        children.add(promise);
+        ((Promise<Object>) promise).whenComplete(this::childDone);
+        if (closed == 1) {
+            promise.cancel();
+        }
+        return promise;
+    }
+
+    private void childDone(final Promise<?> child) {
+        if (child.failure() && firstFailure == null) {
+            firstFailure = child.cause();
+        }
+        children.remove(child);
+    }
+
+    @Override
+    public Promise<Void> all() {
+        final Promise<Void> join = join(false);
+        join.whenComplete(promise -> {
+            if (promise.failure()) {
+                close();
+            }
+        });
+        final Throwable failure = firstFailure;
+        if (failure != null) {
+            /* A child failed, and was forgotten, before the join could listen to it. */
+            join.reject(failure);
+        }
+        return join;
+    }
+
+    @Override
+    public Promise<Void> allSettled() {
+        return join(true);
+    }
+
+    private Promise<Void> join(final boolean settled) {
+        final Promise<Void> join = new CollectingPromise<>(settled, slots -> null,
+                children.toArray(new Promise<?>[0]));
+        joins.add(join);
+        join.whenComplete(joins::remove);
+        if (closed == 1) {
+            join.cancel();
+        }
+        return join;
+    }
+
+    /**
+     * @return number of children, entries and joins the scope holds on to, for tests
+     */
+    int tracked() {
+        return children.size() + entries.size() + joins.size();
+    }
+
+    @Override
+    public boolean closed() {
+        return closed == 1;
+    }
+
+    @Override
+    public void close() {
+        if (!CLOSED.compareAndSet(this, 0, 1)) {
+            return;
+        }
+        for (TimeoutWheel.Entry entry : entries) {
+            entry.dropped = true;
+        }
+        for (Promise<?> child : children) {
+            child.cancel();
+        }
+        for (Promise<?> join : joins) {
+            join.cancel();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.IdleStrategy;
+import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorBuilder;
+import io.advantageous.reakt.reactor.ReactorGroup;
+import io.advantageous.reakt.reactor.ReactorRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Reactor group that owns N reactors, each with a dedicated thread.
+ *
+ * @author Rick Hightower
+ */
+public class ReactorGroupImpl implements ReactorGroup {
+
+    private static final AtomicInteger GROUP_ID = new AtomicInteger();
+    private static final ThreadLocal<Shard> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final Shard[] shards;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final int groupId = GROUP_ID.incrementAndGet();
+    private boolean running;
+
+    public ReactorGroupImpl(final int size, final ReactorBuilder builder) {
+        this(size, builder, IdleStrategy::backoff);
+    }
+
+    /**
+     * @param size         number of reactors
+     * @param builder      builder used to create each reactor
+     * @param idleStrategy creates the idle strategy of each shard thread
+     */
+    public ReactorGroupImpl(final int size, final ReactorBuilder builder,
+                            final Supplier<IdleStrategy> idleStrategy) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be greater than 0");
+        }
+        this.shards = new Shard[size];
+        for (int index = 0; index < size; index++) {
+            shards[index] = new Shard(index, builder.build(), idleStrategy.get());
+        }
+    }
+    /**
+     * Jump consistent hash (Lamping and Veach). Maps a key to a bucket so that growing the number of buckets
+     * only moves the keys that have to move, without any lookup table.
+     *
+     * @param key     key
+     * @param buckets number of buckets
+     * @return bucket from 0 to buckets - 1
+     */
+    static int jumpConsistentHash(long key, final int buckets) {
+        long bucket = -1;
+        long jump = 0;
+        while (jump < buckets) {
+            bucket = jump;
+            key = key * 2862933555777941757L + 1;
+            jump = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    private static long spread(final int hashCode) {
+        long hash = hashCode;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public int size() {
+        return shards.length;
+    }
+
+    @Override
+    public Reactor reactor(final int index) {
+        return shards[index].reactor;
+    }
+
+    @Override
+    public Reactor reactorFor(final Object key) {
+        return shards[jumpConsistentHash(spread(key.hashCode()), shards.length)].reactor;
+    }
+
+    @Override
+    public Reactor next() {
+        return shards[(nextIndex.getAndIncrement() & Integer.MAX_VALUE) % shards.length].reactor;
+    }
+
+    @Override
+    public Reactor current() {
+        final Shard shard = CURRENT_SHARD.get();
+        return shard != null && shard.group() == this ? shard.reactor : null;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Shard shard : shards) {
+            shard.runner.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Shard shard : shards) {
+            shard.runner.stop();
+        }
+    }
+
+    /**
+     * A reactor and the runner that drives it.
+     */
+    class Shard {
+        private final int index;
+        private final Reactor reactor;
+        private final ReactorRunner runner;
+
+        Shard(final int index, final Reactor reactor, final IdleStrategy idleStrategy) {
+            this.index = index;
+            this.reactor = reactor;
+            this.runner = ReactorRunner.reactorRunner(reactor, idleStrategy, this::newThread);
+        }
+
+        ReactorGroupImpl group() {
+            return ReactorGroupImpl.this;
+        }
+
+        private Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(() -> {
+                CURRENT_SHARD.set(this);
+                try {
+                    runnable.run();
+                } finally {
+                    CURRENT_SHARD.remove();
+                }
+            }, "reactor-group-" + groupId + "-" + index);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
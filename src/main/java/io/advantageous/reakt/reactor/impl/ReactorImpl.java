@@ -22,64 +22,151 @@ import io.advantageous.reakt.Callback;
 import io.advantageous.reakt.CallbackHandle;
 import io.advantageous.reakt.Expected;
 import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.BooleanPromise;
+import io.advantageous.reakt.promise.DoublePromise;
+import io.advantageous.reakt.promise.IntPromise;
+import io.advantageous.reakt.promise.LongPromise;
 import io.advantageous.reakt.promise.Promise;
 import io.advantageous.reakt.promise.PromiseHandle;
 import io.advantageous.reakt.promise.ReplayPromise;
+import io.advantageous.reakt.promise.impl.BooleanPromiseImpl;
+import io.advantageous.reakt.promise.impl.DoublePromiseImpl;
+import io.advantageous.reakt.promise.impl.IntPromiseImpl;
 import io.advantageous.reakt.promise.impl.InvokerPromise;
+import io.advantageous.reakt.promise.impl.LongPromiseImpl;
+import io.advantageous.reakt.promise.impl.PooledReplayPromise;
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import io.advantageous.reakt.reactor.Priority;
+import io.advantageous.reakt.reactor.PromiseScope;
 import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorBuilder;
+import io.advantageous.reakt.reactor.RepeatMode;
+import io.advantageous.reakt.reactor.TaskHandle;
+import io.advantageous.reakt.reactor.Tenant;
 import io.advantageous.reakt.reactor.TimeSource;
 
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import static io.advantageous.reakt.promise.Promises.*;
 
 public class ReactorImpl implements Reactor {
 
-    private final Duration defaultTimeout;
-    private final TimeSource timeSource;
-    private final BlockingQueue<ReplayPromise> inputPromiseQueue = new LinkedTransferQueue<>();
-    private final BlockingQueue<ReplayPromise> replyPromiseQueue = new LinkedTransferQueue<>();
-    private final BlockingQueue<Runnable> deferRuns = new LinkedTransferQueue<>();
-    private final List<ReplayPromise> notCompletedPromises = new ArrayList<>();
-
+    /**
+     * Number of buckets in the promise timeout wheel.
+     */
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
 
-    private BlockingQueue<FireOnceTask> fireOnceAfterTaskQueue = new LinkedTransferQueue<>();
-    private BlockingQueue<RepeatingTask> repeatingTaskQueue = new LinkedTransferQueue<>();
+    private static final AtomicIntegerFieldUpdater<ReactorImpl> PARKED =
+            AtomicIntegerFieldUpdater.newUpdater(ReactorImpl.class, "parked");
 
+    private final Duration defaultTimeout;
+    private final TimeSource timeSource;
+    private final MpscArrayQueue<TimeoutWheel.Entry> inputPromiseQueue;
+    private final PriorityLanes<TimeoutWheel.Entry> replyPromiseQueue;
+    private final PriorityLanes<Runnable> deferRuns;
+    private final TimeoutWheel timeoutWheel;
+    private final TaskScheduler taskScheduler;
+    private final Consumer<TimeoutWheel.Entry> addToTimeoutWheel = this::addToTimeoutWheel;
+    private final Consumer<TimeoutWheel.Entry> replayEntry = this::replayEntry;
+    /**
+     * Replays primitive promises on the reactor thread.
+     */
+    private final Executor replayExecutor = this::deferRun;
+    private final int deferRunBudget;
+    private final int taskBudget;
+    private final int replyBudget;
+    private final long phaseTimeBudgetNanos;
+    private final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final int tenantQueueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    /**
+     * Null unless promise pooling is on.
+     */
+    private final PromisePool promisePool;
+    private final boolean confinedPromises;
 
-    private List<FireOnceTask> fireOnceAfterTaskList = new ArrayList<>(1);
-    private List<RepeatingTask> repeatingTaskList = new ArrayList<>(1);
+    private final boolean readTimeOncePerTick;
+    /**
+     * Time at the start of the current tick. Written by the reactor thread, read by producers.
+     */
+    private volatile long currentTime;
 
-    private long currentTime;
+    /**
+     * 1 while the reactor thread is parked in {@link #processOrAwait(Duration)}.
+     * The first producer to flip it back to 0 unparks the thread, the rest of a burst see 0 and do nothing.
+     */
+    private volatile int parked;
+    private volatile Thread reactorThread;
 
 
     public ReactorImpl(final Duration defaultTimeout,
                        final TimeSource timeSource) {
-        this.defaultTimeout = defaultTimeout;
+        this(ReactorBuilder.reactorBuilder().setDefaultTimeout(defaultTimeout).setTimeSource(timeSource));
+    }
+
+    public ReactorImpl(final ReactorBuilder builder) {
+        this.defaultTimeout = builder.getDefaultTimeout();
         final Duration checkPromiseTimeoutInterval = defaultTimeout.dividedBy(10);
-        this.timeSource = timeSource;
+        this.timeSource = builder.getTimeSource();
+        this.readTimeOncePerTick = builder.isReadTimeOncePerTick();
+        this.deferRunBudget = builder.getDeferRunBudget();
+        this.taskBudget = builder.getTaskBudget();
+        this.replyBudget = builder.getReplyBudget();
+        this.phaseTimeBudgetNanos = builder.getPhaseTimeBudget() == null ?
+                Long.MAX_VALUE : builder.getPhaseTimeBudget().toNanos();
+        this.inputPromiseQueue = new MpscArrayQueue<>(builder.getQueueCapacity(), builder.getOverflowPolicy());
+        this.tenantQueueCapacity = builder.getTenantQueueCapacity();
+        this.overflowPolicy = builder.getOverflowPolicy();
+        this.replyPromiseQueue = new PriorityLanes<>(builder.getQueueCapacity(), overflowPolicy,
+                builder.getPriorityWeights(), entry -> entry.enqueuedNanos);
+        this.deferRuns = new PriorityLanes<>(builder.getQueueCapacity(), overflowPolicy,
+                builder.getPriorityWeights(), ReactorImpl::deferRunEnqueuedNanos);
+        this.taskScheduler = new TaskScheduler(builder.getQueueCapacity(), builder.getOverflowPolicy());
+        this.confinedPromises = builder.isConfinedPromises();
+        this.promisePool = builder.getPromisePoolSize() > 0 ?
+                new PromisePool(builder.getPromisePoolSize(), this::wirePooledEntry) : null;
+        this.timeoutWheel = new TimeoutWheel(Math.max(1, checkPromiseTimeoutInterval.toMillis() / 10),
+                TIMEOUT_WHEEL_SIZE, timeSource.getTime(), promisePool != null ? this::releaseIfPooled : null);
+        this.currentTime = timeSource.getTime();
+        /* The building thread usually drives the reactor, it must not block on its own queues before it ticks. */
+        bindConsumer(Thread.currentThread());
         this.addRepeatingTask(checkPromiseTimeoutInterval, this::processPromiseTimeouts);
     }
 
+    private void bindConsumer(final Thread thread) {
+        inputPromiseQueue.bindConsumer(thread);
+        replyPromiseQueue.bindConsumer(thread);
+        deferRuns.bindConsumer(thread);
+        taskScheduler.bindConsumer(thread);
+    }
+
     @Override
     public <T> Promise<T> promise() {
-        final ReplayPromise<T> promise = replayPromise(defaultTimeout, timeSource.getTime());
-        return addPromiseToProcessingQueue(promise);
+        return promise(replyPromiseQueue.lane(Priority.NORMAL).defaultQueue(), defaultTimeout);
     }
 
 
     @Override
     public <T> Promise<T> promise(final Duration timeout) {
-        final ReplayPromise<T> promise = replayPromise(timeout, timeSource.getTime());
-        return addPromiseToProcessingQueue(promise);
+        return promise(replyPromiseQueue.lane(Priority.NORMAL).defaultQueue(), timeout);
     }
 
+    @Override
+    public <T> Promise<T> promise(final Priority priority) {
+        return promise(priority, defaultTimeout);
+    }
+
+    @Override
+    public <T> Promise<T> promise(final Priority priority, final Duration timeout) {
+        return promise(replyPromiseQueue.lane(priority).defaultQueue(), timeout);
+    }
 
     @Override
     public Promise<Void> all(Promise<?>... promises) {
@@ -89,8 +176,9 @@ public class ReactorImpl implements Reactor {
     @Override
     public Promise<Void> all(final Duration timeout,
                              final Promise<?>... promises) {
+        final long time = now();
         return addPromiseToProcessingQueue(
-                wrapAllOrAnyAndMakeInvokeable(allReplay(timeout, timeSource.getTime(), promises))
+                wrapAllOrAnyAndMakeInvokeable(allReplay(timeout, time, promises)), timeout, time
         );
     }
 
@@ -103,8 +191,9 @@ public class ReactorImpl implements Reactor {
     @Override
     public <T> Promise<Void> all(final Duration timeout,
                                  final List<Promise<T>> promises) {
+        final long time = now();
         return addPromiseToProcessingQueue(
-                wrapAllOrAnyAndMakeInvokeable(allReplay(timeout, timeSource.getTime(), promises))
+                wrapAllOrAnyAndMakeInvokeable(allReplay(timeout, time, promises)), timeout, time
         );
     }
 
@@ -117,8 +206,9 @@ public class ReactorImpl implements Reactor {
     @Override
     public Promise<Void> any(final Duration timeout,
                              final Promise<?>... promises) {
+        final long time = now();
         return addPromiseToProcessingQueue(
-                wrapAllOrAnyAndMakeInvokeable(anyReplay(timeout, timeSource.getTime(), promises))
+                wrapAllOrAnyAndMakeInvokeable(anyReplay(timeout, time, promises)), timeout, time
         );
     }
 
@@ -130,177 +220,368 @@ public class ReactorImpl implements Reactor {
     @Override
     public <T> Promise<Void> any(final Duration timeout,
                                  final List<Promise<T>> promises) {
+        final long time = now();
         return addPromiseToProcessingQueue(
-                wrapAllOrAnyAndMakeInvokeable(anyReplay(timeout, timeSource.getTime(), promises))
+                wrapAllOrAnyAndMakeInvokeable(anyReplay(timeout, time, promises)), timeout, time
         );
     }
 
     @Override
-    public void addRepeatingTask(final Duration interval, final Runnable runnable) {
-        repeatingTaskQueue.add(new RepeatingTask(runnable, interval.toMillis()));
+    public TaskHandle addRepeatingTask(final Duration interval, final Runnable runnable) {
+        return addRepeatingTask(interval, RepeatMode.FIXED_DELAY, runnable);
+    }
+
+    @Override
+    public TaskHandle addRepeatingTask(final Duration interval, final RepeatMode mode, final Runnable runnable) {
+        final TaskHandle handle = taskScheduler.schedule(
+                taskScheduler.repeatingTask(runnable, interval.toMillis(), mode));
+        wakeUp();
+        return handle;
     }
 
     @Override
-    public void runTaskAfter(Duration afterInterval, Runnable runnable) {
-        fireOnceAfterTaskQueue.add(new FireOnceTask(runnable, afterInterval.toMillis()));
+    public TaskHandle runTaskAfter(final Duration afterInterval, final Runnable runnable) {
+        final TaskHandle handle = taskScheduler.schedule(
+                taskScheduler.fireOnceTask(runnable, currentTime + afterInterval.toMillis()));
+        wakeUp();
+        return handle;
     }
 
     @Override
     public void deferRun(Runnable runnable) {
-        deferRuns.add(runnable);
+        deferRun(Priority.NORMAL, runnable);
     }
 
     @Override
-    public void process() {
-        copyTaskQueues();
+    public void deferRun(final Priority priority, final Runnable runnable) {
+        deferRuns.add(priority, runnable);
+        wakeUp();
+    }
+
+    @Override
+    public int process() {
+        final Thread current = Thread.currentThread();
+        if (reactorThread != current) {
+            reactorThread = current;
+            bindConsumer(current);
+        }
         currentTime = timeSource.getTime();
-        processDeferRuns();
-        processRepeatingTasks();
-        processFireOnceTasks();
-        processAsyncPromisesReturns();
+        processNewPromises();
+        int workCount = processDeferRuns();
+        workCount += processScheduledTasks();
+        workCount += processAsyncPromisesReturns();
+        return workCount;
     }
 
-    private void copyTaskQueues() {
-        copyQueueToList(fireOnceAfterTaskList, fireOnceAfterTaskQueue);
-        copyQueueToList(repeatingTaskList, repeatingTaskQueue);
+    @Override
+    public Tenant tenant(final String id) {
+        return tenant(id, 1, Priority.NORMAL);
+    }
+
+    @Override
+    public Tenant tenant(final String id, final int weight, final Priority priority) {
+        return tenants.computeIfAbsent(id, key -> new TenantImpl(this, key, weight, priority,
+                replyPromiseQueue.lane(priority).addSubQueue(weight, tenantQueueCapacity, overflowPolicy),
+                deferRuns.lane(priority).addSubQueue(weight, tenantQueueCapacity, overflowPolicy)));
     }
 
-    private <T> void copyQueueToList(List<T> destinaion, Queue<T> source) {
-        T item = source.poll();
-        while (item != null) {
-            destinaion.add(item);
-            item = source.poll();
+    @Override
+    public PromiseScope scope() {
+        return new PromiseScopeImpl(this);
+    }
+
+    Duration defaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Creates a promise for a scope. The scope keeps the entry so it can drop the reply when it closes.
+     * Scoped promises are never pooled, the scope may still hold one after its reply was replayed.
+     */
+    TimeoutWheel.Entry scopedEntry(final Duration timeout) {
+        final long time = now();
+        return addEntryToProcessingQueue(newReplayPromise(timeout, time), timeout, time,
+                replyPromiseQueue.lane(Priority.NORMAL).defaultQueue());
+    }
+
+    /**
+     * Every reply promise is created here, so pooling and confinement apply whatever queue the reply goes to:
+     * a lane's default queue or a tenant's queue.
+     */
+    <T> Promise<T> promise(final FairQueue.SubQueue<TimeoutWheel.Entry> replies, final Duration timeout) {
+        if (promisePool != null) {
+            return pooledPromise(timeout, replies);
+        }
+        final long time = now();
+        final ReplayPromise<T> promise = newReplayPromise(timeout, time);
+        return addPromiseToProcessingQueue(promise, timeout, time, replies);
+    }
+
+    void deferRun(final FairQueue.SubQueue<Runnable> queue, final Runnable runnable) {
+        queue.add(runnable);
+        wakeUp();
+    }
+
+    private static long deferRunEnqueuedNanos(final Runnable runnable) {
+        return runnable instanceof TenantImpl.TenantTask ? ((TenantImpl.TenantTask) runnable).enqueuedNanos : 0;
+    }
+
+    @Override
+    public boolean workRemaining() {
+        return !deferRuns.isEmpty() || !replyPromiseQueue.isEmpty() || taskScheduler.nextDeadline() < currentTime;
+    }
+
+    @Override
+    public int processOrAwait(final Duration maxWait) {
+        final int workCount = process();
+        if (workCount > 0 || workRemaining()) {
+            return workCount;
+        }
+
+        /* Tasks run once the time is past their deadline. The timeout check is one of the tasks. */
+        final long nextDeadline = taskScheduler.nextDeadline();
+        final long untilDeadline = nextDeadline == Long.MAX_VALUE ? Long.MAX_VALUE : nextDeadline + 1 - currentTime;
+        final long waitMillis = Math.min(untilDeadline, maxWait.toMillis());
+        if (waitMillis <= 0) {
+            return 0;
+        }
+
+        reactorThread = Thread.currentThread();
+        parked = 1;
+        /* Anything enqueued before the flag was visible would not have unparked us. */
+        if (hasPendingWork()) {
+            parked = 0;
+            return process();
+        }
+        LockSupport.parkNanos(this, waitMillis * 1_000_000);
+        parked = 0;
+        return process();
+    }
+
+    private boolean hasPendingWork() {
+        return !deferRuns.isEmpty() || !replyPromiseQueue.isEmpty() || taskScheduler.hasPendingChanges();
+    }
+
+    /**
+     * Unparks the reactor thread if it is parked in {@link #processOrAwait(Duration)}.
+     * Only the first caller after the thread parks pays for the unpark.
+     */
+    private void wakeUp() {
+        if (parked == 1 && PARKED.compareAndSet(this, 1, 0)) {
+            LockSupport.unpark(reactorThread);
         }
     }
 
     @Override
     public Promise<String> promiseString() {
-        return addPromiseToProcessingQueue(replayPromiseString(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Integer> promiseInt() {
-        return addPromiseToProcessingQueue(replayPromiseInt(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Long> promiseLong() {
-        return addPromiseToProcessingQueue(replayPromiseLong(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Double> promiseDouble() {
-        return addPromiseToProcessingQueue(replayPromiseDouble(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Float> promiseFloat() {
-        return addPromiseToProcessingQueue(replayPromiseFloat(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Void> promiseNotify() {
-        return addPromiseToProcessingQueue(replayPromiseNotify(defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public Promise<Boolean> promiseBoolean() {
-        return addPromiseToProcessingQueue(replayPromiseBoolean(defaultTimeout, currentTime));
+        return promise();
+    }
+
+    @Override
+    public IntPromise intPromise() {
+        return new IntPromiseImpl(replayExecutor);
+    }
+
+    @Override
+    public LongPromise longPromise() {
+        return new LongPromiseImpl(replayExecutor);
+    }
+
+    @Override
+    public DoublePromise doublePromise() {
+        return new DoublePromiseImpl(replayExecutor);
+    }
+
+    @Override
+    public BooleanPromise booleanPromise() {
+        return new BooleanPromiseImpl(replayExecutor);
     }
 
     @Override
     public <T> Promise<T> promise(Class<T> cls) {
-        return addPromiseToProcessingQueue(replayPromise(cls, defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public <T> Promise<List<T>> promiseList(Class<T> componentType) {
-        return addPromiseToProcessingQueue(replayPromiseList(componentType,
-                defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public <T> Promise<Collection<T>> promiseCollection(Class<T> componentType) {
-        return addPromiseToProcessingQueue(replayPromiseCollection(componentType,
-                defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public <K, V> Promise<Map<K, V>> promiseMap(Class<K> keyType, Class<V> valueType) {
-
-        return addPromiseToProcessingQueue(replayPromiseMap(keyType, valueType,
-                defaultTimeout, currentTime));
+        return promise();
     }
 
     @Override
     public <T> Promise<Set<T>> promiseSet(Class<T> componentType) {
-        return addPromiseToProcessingQueue(replayPromiseSet(componentType,
-                defaultTimeout, currentTime));
+        return promise();
+    }
+
+    /**
+     * @return the tick time if the reactor reads time once per tick, otherwise the time source's time
+     */
+    private long now() {
+        return readTimeOncePerTick ? currentTime : timeSource.getTime();
+    }
+
+    private int processDeferRuns() {
+        return deferRuns.drain(Runnable::run, deferRunBudget, phaseTimeBudgetNanos);
+    }
+
+    /**
+     * Moves promises created since the last tick into the timeout wheel.
+     */
+    private void processNewPromises() {
+        inputPromiseQueue.drain(addToTimeoutWheel, Integer.MAX_VALUE);
     }
 
-    private void processDeferRuns() {
-        Runnable runnable = deferRuns.poll();
-        while (runnable != null) {
-            runnable.run();
-            runnable = deferRuns.poll();
+    /**
+     * Promises that already came back are not added. A pooled entry can be in the input queue more than once
+     * if its promise was replayed, released and reused before the queue was drained; it is only added once,
+     * and not at all if its promise is free.
+     */
+    private void addToTimeoutWheel(final TimeoutWheel.Entry entry) {
+        if (!entry.linked() && entry.current() && !entry.promise().complete()) {
+            timeoutWheel.add(entry);
         }
     }
 
+    /**
+     * @return number of promises waiting in the timeout wheel, for tests
+     */
+    int pendingTimeouts() {
+        return timeoutWheel.size();
+    }
+
     private void processPromiseTimeouts() {
-        notCompletedPromises.clear();
-        ReplayPromise currentPromise = inputPromiseQueue.poll();
-
-        try {
-            while (currentPromise != null) {
-                currentPromise.checkTimeout(timeSource.getTime());
-                if (!currentPromise.complete()) {
-                    notCompletedPromises.add(currentPromise);
-                }
-                currentPromise = inputPromiseQueue.poll();
-            }
-            inputPromiseQueue.addAll(notCompletedPromises);
-        } finally {
-            notCompletedPromises.clear();
+        timeoutWheel.expire(now());
+    }
+
+    private int processAsyncPromisesReturns() {
+        return replyPromiseQueue.drain(replayEntry, replyBudget, phaseTimeBudgetNanos);
+    }
+
+    private void replayEntry(final TimeoutWheel.Entry entry) {
+        timeoutWheel.remove(entry);
+        /* A reply that came back before its scope closed is dropped, cancelled children still run their hooks. */
+        if (!entry.dropped || entry.promise().cancelled()) {
+            entry.promise().replay();
         }
+        releaseIfPooled(entry);
+    }
+
+    private <T> ReplayPromise<T> newReplayPromise(final Duration timeout, final long time) {
+        return confinedPromises ? confinedReplayPromise(timeout, time) : replayPromise(timeout, time);
     }
 
-    private void processAsyncPromisesReturns() {
+    @SuppressWarnings("unchecked")
+    private <T> Promise<T> pooledPromise(final Duration timeout,
+                                         final FairQueue.SubQueue<TimeoutWheel.Entry> replies) {
+        final long time = now();
+        final TimeoutWheel.Entry entry = promisePool.acquire(Thread.currentThread() == reactorThread);
+        final PooledReplayPromise.Ref<T> ref = ((PooledReplayPromise<T>) entry.promise()).acquire(timeout, time);
+        entry.reset(time + timeout.toMillis(), ref.generation());
+        entry.replies = replies;
+        inputPromiseQueue.add(entry);
+        return ref;
+    }
 
-        ReplayPromise poll = replyPromiseQueue.poll();
+    /**
+     * Called once per pooled promise, the handler is reused by every generation.
+     * Each generation sets the queue its reply goes to on the entry.
+     */
+    private void wirePooledEntry(final TimeoutWheel.Entry entry) {
+        entry.promise().afterResultProcessed(replayPromise -> {
+            final FairQueue.SubQueue<TimeoutWheel.Entry> replies = entry.replies;
+            if (replies.tracked()) {
+                entry.enqueuedNanos = System.nanoTime();
+            }
+            replies.add(entry);
+            wakeUp();
+        });
+    }
 
-        while (poll != null) {
-            poll.replay();
-            poll = replyPromiseQueue.poll();
+    /**
+     * Recycles a pooled promise once it has been replayed and all of its handlers have run.
+     */
+    private void releaseIfPooled(final TimeoutWheel.Entry entry) {
+        if (entry.promise() instanceof PooledReplayPromise) {
+            promisePool.release(entry);
         }
     }
 
 
-    private <T> Promise<T> addPromiseToProcessingQueue(ReplayPromise<T> promise) {
-        inputPromiseQueue.add(promise);
-        promise.afterResultProcessed(replyPromiseQueue::add);
-        return promise;
+    private <T> Promise<T> addPromiseToProcessingQueue(final ReplayPromise<T> promise,
+                                                       final Duration timeout,
+                                                       final long startTime) {
+        return addPromiseToProcessingQueue(promise, timeout, startTime,
+                replyPromiseQueue.lane(Priority.NORMAL).defaultQueue());
     }
 
-    public void processRepeatingTasks() {
+    private <T> Promise<T> addPromiseToProcessingQueue(final ReplayPromise<T> promise,
+                                                       final Duration timeout,
+                                                       final long startTime,
+                                                       final FairQueue.SubQueue<TimeoutWheel.Entry> replies) {
+        addEntryToProcessingQueue(promise, timeout, startTime, replies);
+        return promise;
+    }
 
-        /* Run repeating tasks if needed. */
-        repeatingTaskList.forEach(repeatingTask -> {
-            if (currentTime - repeatingTask.lastTimeInvoked > repeatingTask.repeatEveryMS) {
-                repeatingTask.lastTimeInvoked = currentTime;
-                repeatingTask.task.run();
+    private TimeoutWheel.Entry addEntryToProcessingQueue(final ReplayPromise<?> promise,
+                                                         final Duration timeout,
+                                                         final long startTime,
+                                                         final FairQueue.SubQueue<TimeoutWheel.Entry> replies) {
+        final TimeoutWheel.Entry entry = new TimeoutWheel.Entry(promise, startTime + timeout.toMillis());
+        inputPromiseQueue.add(entry);
+        promise.afterResultProcessed(replayPromise -> {
+            if (replies.tracked()) {
+                entry.enqueuedNanos = System.nanoTime();
             }
+            replies.add(entry);
+            wakeUp();
         });
+        return entry;
     }
 
-    public void processFireOnceTasks() {
-        if (fireOnceAfterTaskList.size() == 0) {
-            return;
-        }
-        final List<FireOnceTask> fireOnceTasks = fireOnceAfterTaskList.stream()
-                .filter(fireOnceTask -> currentTime - fireOnceTask.created > fireOnceTask.fireAfterMS)
-                .collect(Collectors.toList());
-        fireOnceTasks.forEach(fireOnceTask -> fireOnceTask.task.run());
-        fireOnceAfterTaskList.removeAll(fireOnceTasks);
+    /**
+     * Runs the fire once and repeating tasks that are due.
+     */
+    private int processScheduledTasks() {
+        return taskScheduler.runExpired(currentTime, taskBudget, phaseTimeBudgetNanos);
     }
 
     private <T> ReplayPromise<T> wrapAllOrAnyAndMakeInvokeable(ReplayPromise<T> complexPromise) {
@@ -426,6 +707,21 @@ public class ReactorImpl implements Reactor {
                 return complexPromise.isInvokable();
             }
 
+            @Override
+            public boolean cancel() {
+                return complexPromise.cancel();
+            }
+
+            @Override
+            public boolean cancelled() {
+                return complexPromise.cancelled();
+            }
+
+            @Override
+            public void onCancel(final Runnable hook) {
+                complexPromise.onCancel(hook);
+            }
+
             @Override
             public Promise<T> thenPromise(Promise<T> promise) {
                 complexPromise.thenPromise(promise);
@@ -525,34 +821,4 @@ public class ReactorImpl implements Reactor {
             }
         };
     }
-
-    /**
-     * A repeating task.
-     */
-    class RepeatingTask {
-        private final Runnable task;
-        private final long repeatEveryMS;
-        private long lastTimeInvoked;
-
-
-        public RepeatingTask(Runnable task, long repeatEveryMS) {
-            this.task = task;
-            this.repeatEveryMS = repeatEveryMS;
-        }
-    }
-
-    /**
-     * Fire once task.
-     */
-    class FireOnceTask {
-        private final Runnable task;
-        private final long fireAfterMS;
-        private final long created;
-
-        public FireOnceTask(Runnable task, long fireAfterMS) {
-            this.task = task;
-            this.created = currentTime;
-            this.fireAfterMS = fireAfterMS;
-        }
-    }
 }
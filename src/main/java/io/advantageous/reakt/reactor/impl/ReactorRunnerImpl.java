@@ -0,0 +1,121 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.IdleStrategy;
+import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorRunner;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs {@link Reactor#process()} in a loop on one thread, idling with the {@link IdleStrategy}.
+ * An exception thrown out of a tick is reported to the thread's uncaught exception handler and the loop goes on.
+ *
+ * @author Rick Hightower
+ */
+public class ReactorRunnerImpl implements ReactorRunner, Runnable {
+
+    private static final AtomicInteger RUNNER_ID = new AtomicInteger();
+
+    private final Reactor reactor;
+    private final IdleStrategy idleStrategy;
+    private final ThreadFactory threadFactory;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param reactor       reactor to drive
+     * @param idleStrategy  what to do between ticks
+     * @param threadFactory creates the thread, if null a daemon thread named reactor-runner-N is used
+     */
+    public ReactorRunnerImpl(final Reactor reactor, final IdleStrategy idleStrategy,
+                             final ThreadFactory threadFactory) {
+        this.reactor = reactor;
+        this.idleStrategy = idleStrategy;
+        this.threadFactory = threadFactory != null ? threadFactory : runnable -> {
+            final Thread thread = new Thread(runnable, "reactor-runner-" + RUNNER_ID.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public Reactor reactor() {
+        return reactor;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        idleStrategy.reset();
+        thread = threadFactory.newThread(this);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        final Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = this.thread;
+        }
+        LockSupport.unpark(thread);
+        if (thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean running() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        final Thread current = Thread.currentThread();
+        while (running) {
+            int workCount;
+            try {
+                workCount = reactor.process();
+            } catch (Exception ex) {
+                /* A failing handler must not take the reactor thread down. */
+                current.getUncaughtExceptionHandler().uncaughtException(current, ex);
+                workCount = 1;
+            }
+            /* Work left over from a budgeted tick is not a reason to back off. */
+            if (workCount == 0 && reactor.workRemaining()) {
+                workCount = 1;
+            }
+            idleStrategy.idle(workCount);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import io.advantageous.reakt.reactor.ReactorBuilder;
+import io.advantageous.reakt.reactor.RepeatMode;
+import io.advantageous.reakt.reactor.TaskHandle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deadline ordered scheduler for reactor tasks.
+ * <p>
+ * Tasks are kept in a binary min-heap keyed by their next fire time, so a tick only looks at the tasks that are
+ * due: O(expired * log n) instead of walking every task.
+ * <p>
+ * {@link #schedule(ScheduledTask)} and {@link ScheduledTask#cancel()} can be called from any thread; they hand
+ * the task to the reactor thread through a queue. Everything else is only called from the reactor thread.
+ * A cancelled task is removed from the heap in O(log n) on the next tick.
+ *
+ * @author Rick Hightower
+ */
+public class TaskScheduler {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final MpscArrayQueue<ScheduledTask> scheduledTaskQueue;
+    private final MpscArrayQueue<ScheduledTask> cancelledTaskQueue;
+    private final List<ScheduledTask> rescheduledTasks = new ArrayList<>();
+    private ScheduledTask[] heap = new ScheduledTask[INITIAL_CAPACITY];
+    private int size;
+    private long sequence;
+
+    public TaskScheduler() {
+        this(ReactorBuilder.DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param queueCapacity  capacity of the queues that hand tasks to the reactor thread
+     * @param overflowPolicy what to do when those queues are full
+     */
+    public TaskScheduler(final int queueCapacity, final OverflowPolicy overflowPolicy) {
+        this.scheduledTaskQueue = new MpscArrayQueue<>(queueCapacity, overflowPolicy);
+        this.cancelledTaskQueue = new MpscArrayQueue<>(queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * Creates a task that runs once, after the deadline has passed.
+     *
+     * @param task     task to run
+     * @param deadline time after which the task runs
+     * @return scheduled task, not yet scheduled
+     */
+    public ScheduledTask fireOnceTask(final Runnable task, final long deadline) {
+        return new ScheduledTask(this, task, deadline, 0, RepeatMode.FIXED_DELAY);
+    }
+
+    /**
+     * Creates a task that runs on the next tick, and then every interval.
+     *
+     * @param task     task to run
+     * @param interval interval in the units of the time source
+     * @param mode     fixed delay or fixed rate
+     * @return scheduled task, not yet scheduled
+     */
+    public ScheduledTask repeatingTask(final Runnable task, final long interval, final RepeatMode mode) {
+        return new ScheduledTask(this, task, Long.MIN_VALUE, Math.max(1, interval), mode);
+    }
+
+    /**
+     * Hands a task to the reactor thread. It is added to the heap on the next tick.
+     *
+     * @param task task
+     * @return the task, which is also its handle
+     */
+    public ScheduledTask schedule(final ScheduledTask task) {
+        scheduledTaskQueue.add(task);
+        return task;
+    }
+
+    /**
+     * Makes a thread the consumer of the queues that hand tasks to the reactor thread.
+     *
+     * @param thread reactor thread
+     */
+    public void bindConsumer(final Thread thread) {
+        scheduledTaskQueue.bindConsumer(thread);
+        cancelledTaskQueue.bindConsumer(thread);
+    }
+
+    /**
+     * Runs all tasks whose deadline is before {@code time}.
+     * Repeating tasks run at most once per call.
+     *
+     * @param time current time
+     * @return number of tasks that ran
+     */
+    public int runExpired(final long time) {
+        return runExpired(time, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs tasks whose deadline is before {@code time}, up to a budget.
+     * Tasks that are due but over budget stay in the heap and run on the next call.
+     *
+     * @param time            current time
+     * @param limit           most tasks to run
+     * @param timeBudgetNanos most time to spend, checked between tasks, {@code Long.MAX_VALUE} for none
+     * @return number of tasks that ran
+     */
+    public int runExpired(final long time, final int limit, final long timeBudgetNanos) {
+        copyTaskQueues();
+
+        final long start = timeBudgetNanos == Long.MAX_VALUE ? 0 : System.nanoTime();
+        int ran = 0;
+        try {
+            while (size > 0 && time > heap[0].deadline && ran < limit) {
+                if (timeBudgetNanos != Long.MAX_VALUE && ran > 0 && System.nanoTime() - start >= timeBudgetNanos) {
+                    break;
+                }
+                final ScheduledTask task = removeAt(0);
+                if (task.cancelled) {
+                    continue;
+                }
+                if (task.interval > 0) {
+                    task.deadline = task.nextDeadline(time);
+                    rescheduledTasks.add(task);
+                }
+                ran++;
+                task.task.run();
+            }
+        } finally {
+            for (int index = 0; index < rescheduledTasks.size(); index++) {
+                final ScheduledTask task = rescheduledTasks.get(index);
+                if (!task.cancelled) {
+                    offer(task);
+                }
+            }
+            rescheduledTasks.clear();
+        }
+        return ran;
+    }
+
+    /**
+     * @return the deadline of the next task, or {@code Long.MAX_VALUE} if nothing is scheduled
+     */
+    public long nextDeadline() {
+        return size > 0 ? heap[0].deadline : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true if tasks were scheduled or cancelled since the last tick
+     */
+    public boolean hasPendingChanges() {
+        return !scheduledTaskQueue.isEmpty() || !cancelledTaskQueue.isEmpty();
+    }
+
+    /**
+     * @return number of tasks in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    private void copyTaskQueues() {
+        ScheduledTask task = cancelledTaskQueue.poll();
+        while (task != null) {
+            if (task.heapIndex >= 0) {
+                removeAt(task.heapIndex);
+            }
+            task = cancelledTaskQueue.poll();
+        }
+
+        task = scheduledTaskQueue.poll();
+        while (task != null) {
+            if (!task.cancelled) {
+                task.sequence = sequence++;
+                offer(task);
+            }
+            task = scheduledTaskQueue.poll();
+        }
+    }
+
+    private void offer(final ScheduledTask task) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        siftUp(size, task);
+        size++;
+    }
+
+    private ScheduledTask removeAt(final int index) {
+        final ScheduledTask removed = heap[index];
+        size--;
+        final ScheduledTask last = heap[size];
+        heap[size] = null;
+        if (index != size) {
+            siftDown(index, last);
+            if (heap[index] == last) {
+                siftUp(index, last);
+            }
+        }
+        removed.heapIndex = -1;
+        return removed;
+    }
+
+    private void siftUp(int index, final ScheduledTask task) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final ScheduledTask parentTask = heap[parent];
+            if (!task.before(parentTask)) {
+                break;
+            }
+            heap[index] = parentTask;
+            parentTask.heapIndex = index;
+            index = parent;
+        }
+        heap[index] = task;
+        task.heapIndex = index;
+    }
+
+    private void siftDown(int index, final ScheduledTask task) {
+        final int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            final int right = child + 1;
+            if (right < size && heap[right].before(heap[child])) {
+                child = right;
+            }
+            if (!heap[child].before(task)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = task;
+        task.heapIndex = index;
+    }
+
+    /**
+     * A task in the scheduler. This is also the handle returned to the user.
+     */
+    public static class ScheduledTask implements TaskHandle {
+
+        private final TaskScheduler scheduler;
+        private final Runnable task;
+        private final long interval;
+        private final RepeatMode mode;
+        private long deadline;
+        private long sequence;
+        private int heapIndex = -1;
+        private volatile boolean cancelled;
+
+        private ScheduledTask(final TaskScheduler scheduler,
+                              final Runnable task,
+                              final long deadline,
+                              final long interval,
+                              final RepeatMode mode) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadline = deadline;
+            this.interval = interval;
+            this.mode = mode;
+        }
+
+        private long nextDeadline(final long time) {
+            if (mode == RepeatMode.FIXED_RATE && deadline != Long.MIN_VALUE) {
+                return deadline + interval;
+            }
+            return time + interval;
+        }
+
+        private boolean before(final ScheduledTask other) {
+            return deadline < other.deadline || (deadline == other.deadline && sequence < other.sequence);
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                scheduler.cancelledTaskQueue.add(this);
+            }
+        }
+
+        @Override
+        public boolean cancelled() {
+            return cancelled;
+        }
+    }
+}
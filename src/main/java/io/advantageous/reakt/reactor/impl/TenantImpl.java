@@ -0,0 +1,142 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Priority;
+import io.advantageous.reakt.reactor.Tenant;
+
+import java.time.Duration;
+
+/**
+ * Tenant of a {@link ReactorImpl}, backed by one tracked sub-queue for replies and one for deferred runs.
+ *
+ * @author Rick Hightower
+ */
+public class TenantImpl implements Tenant {
+
+    private final ReactorImpl reactor;
+    private final String id;
+    private final int weight;
+    private final Priority priority;
+    private final FairQueue.SubQueue<TimeoutWheel.Entry> replies;
+    private final FairQueue.SubQueue<Runnable> deferRuns;
+
+    TenantImpl(final ReactorImpl reactor, final String id, final int weight, final Priority priority,
+               final FairQueue.SubQueue<TimeoutWheel.Entry> replies,
+               final FairQueue.SubQueue<Runnable> deferRuns) {
+        this.reactor = reactor;
+        this.id = id;
+        this.weight = weight;
+        this.priority = priority;
+        this.replies = replies;
+        this.deferRuns = deferRuns;
+    }
+
+    private static Duration average(final long totalNanos, final long count) {
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos / count);
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public int weight() {
+        return weight;
+    }
+
+    @Override
+    public Priority priority() {
+        return priority;
+    }
+
+    @Override
+    public <T> Promise<T> promise() {
+        return reactor.promise(replies, reactor.defaultTimeout());
+    }
+
+    @Override
+    public <T> Promise<T> promise(final Duration timeout) {
+        return reactor.promise(replies, timeout);
+    }
+
+    @Override
+    public void deferRun(final Runnable runnable) {
+        reactor.deferRun(deferRuns, new TenantTask(runnable, System.nanoTime()));
+    }
+
+    @Override
+    public int replyQueueDepth() {
+        return replies.depth();
+    }
+
+    @Override
+    public int deferRunQueueDepth() {
+        return deferRuns.depth();
+    }
+
+    @Override
+    public Duration averageReplyWait() {
+        return average(replies.totalWaitNanos(), replies.drainedCount());
+    }
+
+    @Override
+    public Duration maxReplyWait() {
+        return Duration.ofNanos(replies.maxWaitNanos());
+    }
+
+    @Override
+    public Duration averageDeferRunWait() {
+        return average(deferRuns.totalWaitNanos(), deferRuns.drainedCount());
+    }
+
+    @Override
+    public Duration maxDeferRunWait() {
+        return Duration.ofNanos(deferRuns.maxWaitNanos());
+    }
+
+    @Override
+    public String toString() {
+        return "Tenant{" +
+                "id='" + id + '\'' +
+                ", weight=" + weight +
+                ", priority=" + priority +
+                '}';
+    }
+
+    /**
+     * Deferred run stamped with the time it was queued.
+     */
+    static class TenantTask implements Runnable {
+        private final Runnable task;
+        final long enqueuedNanos;
+
+        TenantTask(final Runnable task, final long enqueuedNanos) {
+            this.task = task;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.ReplayPromise;
+import io.advantageous.reakt.promise.impl.PooledReplayPromise;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel that indexes pending replay promises by their deadline.
+ * <p>
+ * Each bucket holds an intrusive doubly linked list of {@link Entry} nodes, so adding a promise and
+ * unlinking a completed promise are both O(1).
+ * An {@link #expire(long)} sweep only visits the buckets whose ticks have passed since the last sweep,
+ * instead of every pending promise.
+ * <p>
+ * Entries whose deadline is more than one revolution away share a bucket with nearer entries; they are
+ * skipped (not expired) until their own tick comes around.
+ * <p>
+ * This class is not thread safe. It is only accessed from the reactor thread.
+ *
+ * @author Rick Hightower
+ */
+public class TimeoutWheel {
+
+    private final Entry[] buckets;
+    private final int mask;
+    private final long tickDuration;
+    private final Consumer<Entry> timedOut;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickDuration duration of one tick (one bucket) in the units of the time source
+     * @param wheelSize    number of buckets, rounded up to a power of two
+     * @param startTime    current time of the time source
+     */
+    public TimeoutWheel(final long tickDuration, final int wheelSize, final long startTime) {
+        this(tickDuration, wheelSize, startTime, null);
+    }
+
+    /**
+     * @param tickDuration duration of one tick (one bucket) in the units of the time source
+     * @param wheelSize    number of buckets, rounded up to a power of two
+     * @param startTime    current time of the time source
+     * @param timedOut     called with each entry after its promise timed out and was replayed, can be null
+     */
+    public TimeoutWheel(final long tickDuration, final int wheelSize, final long startTime,
+                        final Consumer<Entry> timedOut) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30");
+        }
+        final int powerOfTwo = Integer.highestOneBit(wheelSize) == wheelSize ?
+                wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.buckets = new Entry[powerOfTwo];
+        this.mask = powerOfTwo - 1;
+        this.tickDuration = tickDuration;
+        this.currentTick = startTime / tickDuration;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Adds an entry to the wheel.
+     * The entry must not already be in a wheel.
+     *
+     * @param entry entry to schedule
+     */
+    public void add(final Entry entry) {
+        /* The entry is due on the first tick that starts strictly after its deadline. */
+        long tick = entry.deadline / tickDuration + 1;
+        if (tick <= currentTick) {
+            tick = currentTick + 1;
+        }
+        entry.tick = tick;
+        final int index = (int) (tick & mask);
+        final Entry head = buckets[index];
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        buckets[index] = entry;
+        entry.bucket = index;
+        size++;
+    }
+
+    /**
+     * Unlinks an entry from the wheel. Does nothing if the entry is not in the wheel.
+     *
+     * @param entry entry to unlink
+     */
+    public void remove(final Entry entry) {
+        if (entry.bucket == Entry.UNLINKED) {
+            return;
+        }
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            buckets[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.bucket = Entry.UNLINKED;
+        size--;
+    }
+
+    /**
+     * Checks the timeouts of all entries whose tick has passed.
+     * Only the buckets between the last sweep and {@code time} are visited.
+     *
+     * @param time current time
+     * @return number of promises that timed out
+     */
+    public int expire(final long time) {
+        final long targetTick = time / tickDuration;
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+        /* After a full revolution every bucket has been passed, so visit each bucket at most once. */
+        final long ticks = Math.min(targetTick - currentTick, buckets.length);
+        final long fromTick = currentTick;
+        currentTick = targetTick;
+        int expired = 0;
+        for (long tick = fromTick + 1; tick <= fromTick + ticks; tick++) {
+            expired += expireBucket((int) (tick & mask), targetTick, time);
+        }
+        return expired;
+    }
+
+    private int expireBucket(final int index, final long targetTick, final long time) {
+        int expired = 0;
+        Entry entry = buckets[index];
+        while (entry != null) {
+            final Entry next = entry.next;
+            if (entry.tick <= targetTick) {
+                remove(entry);
+                if (entry.promise.checkTimeout(time)) {
+                    expired++;
+                    if (timedOut != null) {
+                        timedOut.accept(entry);
+                    }
+                } else if (!entry.promise.complete() && entry.current()) {
+                    /* The promise does not agree that it is due yet, look at it again on the next tick. */
+                    add(entry);
+                }
+            }
+            entry = next;
+        }
+        return expired;
+    }
+
+    /**
+     * @return number of promises in the wheel
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Node that links a replay promise into a bucket of the wheel.
+     * The entry is created once per promise, and is also what the reactor queues when the result comes back,
+     * so the promise can be unlinked without a lookup.
+     */
+    public static class Entry {
+
+        private static final int UNLINKED = -1;
+
+        @SuppressWarnings("rawtypes")
+        private final ReplayPromise promise;
+        private long deadline;
+        private long generation;
+        private Entry prev;
+        private Entry next;
+        private long tick;
+        private int bucket = UNLINKED;
+        /**
+         * When the reply was queued, only stamped for tenant replies.
+         */
+        long enqueuedNanos;
+        /**
+         * Queue the reply of the current use of a pooled promise goes to.
+         */
+        FairQueue.SubQueue<Entry> replies;
+        /**
+         * Set when the scope that owns the promise closed, the reply is then not replayed.
+         */
+        volatile boolean dropped;
+
+        @SuppressWarnings("rawtypes")
+        public Entry(final ReplayPromise promise, final long deadline) {
+            this.promise = promise;
+            this.deadline = deadline;
+        }
+
+        @SuppressWarnings("rawtypes")
+        public ReplayPromise promise() {
+            return promise;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        public boolean linked() {
+            return bucket != UNLINKED;
+        }
+
+        /**
+         * A pooled promise can be replayed and released while its entry is still on its way to the wheel,
+         * and then reused. Such an entry must not be scheduled for a use it was not queued for.
+         *
+         * @return false if the entry's pooled promise was released, or reused since the entry was reset
+         */
+        public boolean current() {
+            if (promise instanceof PooledReplayPromise) {
+                final PooledReplayPromise<?> pooled = (PooledReplayPromise<?>) promise;
+                return !pooled.free() && pooled.generation() == generation;
+            }
+            return true;
+        }
+
+        /**
+         * Reuses the entry for a new use of its pooled promise. The entry must not be in a wheel.
+         *
+         * @param deadline   new deadline
+         * @param generation generation of the pooled promise for this use
+         */
+        void reset(final long deadline, final long generation) {
+            this.deadline = deadline;
+            this.generation = generation;
+            this.enqueuedNanos = 0;
+            this.dropped = false;
+        }
+    }
+}
@@ -18,6 +18,7 @@
 
 package io.advantageous.reakt;
 
+import io.advantageous.reakt.exception.RejectedPromiseException;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -44,6 +45,18 @@ public class CallbackTest {
     }
 
 
+    @Test
+    public void testRejectWithMessageIsStackless() {
+        final Result<Employee>[] results = new Result[1];
+        final Callback<Employee> callback = result -> results[0] = result;
+        callback.reject("no such employee");
+
+        assertTrue(results[0].cause() instanceof RejectedPromiseException);
+        assertEquals("no such employee", results[0].cause().getMessage());
+        assertEquals(0, results[0].cause().getStackTrace().length);
+    }
+
+
     @Test
     public void testError() throws Exception {
 
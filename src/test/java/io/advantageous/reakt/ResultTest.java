@@ -21,6 +21,7 @@ package io.advantageous.reakt;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import static org.junit.Assert.*;
 
@@ -89,6 +90,31 @@ public class ResultTest {
 
     }
 
+    @Test
+    public void testSharedResults() {
+        assertSame(Result.DONE, Result.result(null));
+        assertSame(Result.result(true), Result.result(Boolean.TRUE));
+        assertSame(Result.result(42), Result.result(42));
+        assertSame(Result.result(Collections.emptyList()), Result.result(Collections.emptyList()));
+        assertNotSame(Result.result(1000), Result.result(1000));
+        assertEquals(Integer.valueOf(1000), Result.result(1000).get());
+
+        /* Shared results build their Expected once. */
+        assertSame(Result.result(7).expect(), Result.result(7).expect());
+        assertFalse(Result.result(null).expect().isPresent());
+        assertTrue(Result.result(false).success());
+    }
+
+    @Test
+    public void testFailedResultCanBeResent() {
+        final Result<String> notFound = Result.error(new IOException("not found"));
+        final int[] failures = new int[1];
+        final Callback<String> callback = result -> result.catchError(error -> failures[0]++);
+        callback.onResult(notFound);
+        callback.onResult(notFound);
+        assertEquals(2, failures[0]);
+    }
+
     static class Employee {
         private final String id;
 
@@ -0,0 +1,168 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.Observer;
+import io.advantageous.reakt.StreamResult;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsCompletedTest {
+
+    @Test
+    public void testResultsInCompletionOrder() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> third = Promises.promise();
+        final List<StreamResult<String>> results = new ArrayList<>();
+        Promises.asCompleted(Arrays.asList(first, second, third), results::add);
+
+        third.reply("c");
+        assertEquals(1, results.size());
+        assertEquals("c", results.get(0).get());
+        assertFalse(results.get(0).complete());
+
+        first.reject("down");
+        second.reply("b");
+        assertEquals(3, results.size());
+        assertTrue(results.get(1).failure());
+        assertEquals("b", results.get(2).get());
+        assertTrue(results.get(2).complete());
+    }
+
+    @Test
+    public void testCancelStopsStream() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final List<String> values = new ArrayList<>();
+        Promises.asCompleted(Arrays.asList(first, second), result -> {
+            values.add(result.get());
+            result.cancel();
+        });
+
+        first.reply("a");
+        second.reply("b");
+        assertEquals(Collections.singletonList("a"), values);
+    }
+
+    @Test
+    public void testObserver() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final List<String> events = new ArrayList<>();
+        Promises.asCompleted(Arrays.asList(first, second), Observer.stream(new Observer<String>() {
+            @Override
+            public void onCompleted() {
+                events.add("completed");
+            }
+
+            @Override
+            public void onError(final Throwable e) {
+                events.add("error");
+            }
+
+            @Override
+            public void onNext(final String value) {
+                events.add(value);
+            }
+        }));
+
+        second.reply("b");
+        first.reply("a");
+        assertEquals(Arrays.asList("b", "a", "completed"), events);
+    }
+
+    @Test
+    public void testReduce() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final List<Integer> partials = new ArrayList<>();
+        final Promise<Integer> sum = Promises.reduce(Arrays.asList(first, second), 0, (total, value) -> {
+            partials.add(total + value);
+            return total + value;
+        });
+
+        second.reply(2);
+        assertEquals(Collections.singletonList(2), partials);
+        assertFalse(sum.complete());
+        first.reply(3);
+        assertEquals(Integer.valueOf(5), sum.get());
+    }
+
+    @Test
+    public void testReduceFailsWithFirstFailure() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final Promise<Integer> sum = Promises.reduce(Arrays.asList(first, second), 0, Integer::sum);
+
+        first.reject("down");
+        second.reply(2);
+        assertTrue(sum.failure());
+        assertEquals("down", sum.cause().getMessage());
+    }
+
+    @Test
+    public void testReduceEmpty() {
+        final Promise<Integer> sum = Promises.reduce(Collections.<Promise<Integer>>emptyList(), 7, Integer::sum);
+        assertEquals(Integer.valueOf(7), sum.get());
+    }
+
+    @Test
+    public void testReduceFromManyThreads() throws Exception {
+        final int count = 1000;
+        final List<Promise<Integer>> promises = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            promises.add(Promises.promise());
+        }
+        /* The accumulator mutates a plain list, which only works if calls never overlap. */
+        final Promise<List<Integer>> all = Promises.reduce(promises, new ArrayList<>(), (list, value) -> {
+            list.add(value);
+            return list;
+        });
+        final CountDownLatch latch = new CountDownLatch(1);
+        all.whenComplete(promise -> latch.countDown());
+
+        final Thread[] threads = new Thread[4];
+        for (int thread = 0; thread < threads.length; thread++) {
+            final int offset = thread;
+            threads[thread] = new Thread(() -> {
+                for (int index = offset; index < count; index += threads.length) {
+                    promises.get(index).reply(index);
+                }
+            });
+            threads[thread].start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        final List<Integer> values = new ArrayList<>(all.get());
+        Collections.sort(values);
+        assertEquals(count, values.size());
+        for (int index = 0; index < count; index++) {
+            assertEquals(Integer.valueOf(index), values.get(index));
+        }
+    }
+}
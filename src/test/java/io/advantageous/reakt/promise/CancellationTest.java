@@ -0,0 +1,143 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.exception.PromiseCancelledException;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CancellationTest {
+
+    @Test
+    public void testCancelRunsProducerHooks() {
+        final AtomicInteger released = new AtomicInteger();
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final PromiseHandle<String> handle = Promises.<String>deferCall(
+                callback -> callback.onCancel(released::incrementAndGet))
+                .catchError(cause::set)
+                .invoke();
+
+        assertTrue(handle.cancel());
+        assertEquals(1, released.get());
+        assertTrue(cause.get() instanceof PromiseCancelledException);
+        assertTrue(handle.asPromise().cancelled());
+        assertFalse(handle.cancel());
+    }
+
+    @Test
+    public void testCompletedPromiseIsNotCancelled() {
+        final AtomicInteger released = new AtomicInteger();
+        final Promise<String> promise = Promises.promise();
+        promise.onCancel(released::incrementAndGet);
+        promise.reply("done");
+
+        assertFalse(promise.cancel());
+        assertFalse(promise.cancelled());
+        assertEquals(0, released.get());
+    }
+
+    @Test
+    public void testHookAddedAfterCancelRunsRightAway() {
+        final AtomicInteger released = new AtomicInteger();
+        final Promise<String> promise = Promises.promise();
+        promise.cancel();
+        promise.onCancel(released::incrementAndGet);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    public void testCancelledBeforeInvokeSkipsCall() {
+        final AtomicBoolean called = new AtomicBoolean();
+        final Promise<String> promise = Promises.invokablePromise(callback -> called.set(true));
+        promise.cancel();
+        promise.invoke();
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void testBodyObservesToken() {
+        final AtomicReference<Boolean> seen = new AtomicReference<>();
+        final Promise<String> promise = Promises.invokablePromise(callback -> seen.set(callback.cancelled()));
+        promise.invoke();
+        assertFalse(seen.get());
+    }
+
+    @Test
+    public void testReplayTimeoutRunsHooks() {
+        final AtomicInteger released = new AtomicInteger();
+        final ReplayPromise<String> promise = Promises.replayPromise(Duration.ofMillis(10), 0);
+        promise.onCancel(released::incrementAndGet);
+
+        assertTrue(promise.checkTimeout(100));
+        assertEquals(1, released.get());
+        assertTrue(promise.cancelled());
+    }
+
+    @Test
+    public void testCancelComposedCancelsStepInFlight() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> composed = first.thenCompose(value -> second);
+
+        first.reply("a");
+        assertTrue(composed.cancel());
+        assertTrue(second.cancelled());
+    }
+
+    @Test
+    public void testCancelMappedCancelsSource() {
+        final Promise<String> source = Promises.promise();
+        final Promise<Integer> mapped = source.thenMap(String::length).thenMap(length -> length * 2);
+        assertTrue(mapped.cancel());
+        assertTrue(source.cancelled());
+    }
+
+    @Test
+    public void testAnyCancelsLosers() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<Void> any = Promises.any(first, second);
+
+        second.reply("b");
+        assertTrue(any.success());
+        assertTrue(first.cancelled());
+    }
+
+    @Test
+    public void testCancelCombinatorCancelsChildren() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> winner = Promises.firstSuccess(first, second);
+        final Promise<String> third = Promises.promise();
+        final Promise<?> all = Promises.allValues(third);
+
+        winner.cancel();
+        all.cancel();
+        assertTrue(first.cancelled());
+        assertTrue(second.cancelled());
+        assertTrue(third.cancelled());
+    }
+}
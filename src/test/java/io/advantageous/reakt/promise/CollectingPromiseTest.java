@@ -0,0 +1,160 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.Result;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class CollectingPromiseTest {
+
+    @Test
+    public void testAllValuesInChildOrder() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<List<String>> all = Promises.allValues(first, second);
+        final AtomicReference<List<String>> values = new AtomicReference<>();
+        all.then(values::set);
+
+        second.reply("b");
+        assertNull(values.get());
+        first.reply("a");
+        assertEquals(Arrays.asList("a", "b"), values.get());
+    }
+
+    @Test
+    public void testAllValuesFailsWithFirstFailure() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<List<String>> all = Promises.allValues(Arrays.asList(first, second));
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        all.catchError(error::set);
+
+        final IllegalStateException cause = new IllegalStateException("boom");
+        first.reject(cause);
+        second.reply("b");
+        assertSame(cause, error.get());
+        assertTrue(all.failure());
+    }
+
+    @Test
+    public void testAllValuesEmpty() {
+        final Promise<List<String>> all = Promises.allValues(Collections.emptyList());
+        assertTrue(all.success());
+        assertTrue(all.get().isEmpty());
+    }
+
+    @Test
+    public void testAllSettled() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final Promise<List<Result<Integer>>> all = Promises.allSettled(Arrays.asList(first, second));
+
+        first.reject("nope");
+        second.reply(2);
+        assertTrue(all.success());
+        assertTrue(all.get().get(0).failure());
+        assertEquals("nope", all.get().get(0).cause().getMessage());
+        assertEquals(Integer.valueOf(2), all.get().get(1).get());
+    }
+
+    @Test
+    public void testAllSettledVarargs() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final Promise<List<Result<Integer>>> all = Promises.allSettled(first, second);
+
+        second.reply(2);
+        assertFalse(all.complete());
+        first.reject("nope");
+        assertTrue(all.success());
+        assertTrue(all.get().get(0).failure());
+        assertEquals(Integer.valueOf(2), all.get().get(1).get());
+    }
+
+    @Test
+    public void testZip() {
+        final Promise<String> name = Promises.promise();
+        final Promise<Integer> age = Promises.promise();
+        final Promise<Boolean> active = Promises.promise();
+        final Promise<Double> score = Promises.promise();
+
+        final Promise<String> two = Promises.zip(name, age, (n, a) -> n + a);
+        final Promise<String> three = Promises.zip(name, age, active, (n, a, b) -> n + a + b);
+        final Promise<String> four = Promises.zip(name, age, active, score, (n, a, b, s) -> n + a + b + s);
+
+        name.reply("rick");
+        age.reply(42);
+        active.reply(true);
+        score.reply(1.5);
+        assertEquals("rick42", two.get());
+        assertEquals("rick42true", three.get());
+        assertEquals("rick42true1.5", four.get());
+    }
+
+    @Test
+    public void testZipCombinerFailure() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> zipped = Promises.zip(first, second, (a, b) -> {
+            throw new IllegalArgumentException("bad");
+        });
+        first.reply("a");
+        second.reply("b");
+        assertTrue(zipped.failure());
+        assertTrue(zipped.cause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testFanOutFromManyThreads() throws Exception {
+        final int count = 1000;
+        final List<Promise<Integer>> promises = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            promises.add(Promises.promise());
+        }
+        final Promise<List<Integer>> all = Promises.allValues(promises);
+        final CountDownLatch latch = new CountDownLatch(1);
+        all.whenComplete(promise -> latch.countDown());
+
+        final Thread[] threads = new Thread[4];
+        for (int thread = 0; thread < threads.length; thread++) {
+            final int offset = thread;
+            threads[thread] = new Thread(() -> {
+                for (int index = offset; index < count; index += threads.length) {
+                    promises.get(index).reply(index);
+                }
+            });
+            threads[thread].start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int index = 0; index < count; index++) {
+            assertEquals(Integer.valueOf(index), all.get().get(index));
+        }
+    }
+}
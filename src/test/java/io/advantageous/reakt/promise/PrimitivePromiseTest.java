@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.IntCallback;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PrimitivePromiseTest {
+
+    @Test
+    public void testIntPromise() {
+        final int[] value = new int[1];
+        final List<String> calls = new ArrayList<>();
+        final IntPromise promise = Promises.intPromise()
+                .then(result -> value[0] = result)
+                .catchError(error -> calls.add("catch"))
+                .whenComplete(p -> calls.add("complete " + p.get()));
+        final IntPromise doubled = promise.thenMap(result -> result * 2);
+
+        assertFalse(promise.complete());
+        promise.reply(21);
+        promise.reply(99);
+
+        assertEquals(21, value[0]);
+        assertEquals("[complete 21]", calls.toString());
+        assertTrue(promise.success());
+        assertEquals(21, promise.get());
+        assertEquals(42, doubled.get());
+        assertEquals(Integer.valueOf(21), promise.boxed().get());
+        assertEquals("21", promise.thenMapToObj(Integer::toString).get());
+
+        /* Registered after completion, runs right away. */
+        promise.then(result -> value[0] = -result);
+        assertEquals(-21, value[0]);
+    }
+
+    @Test
+    public void testRejected() {
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final LongPromise promise = Promises.longPromise().catchError(cause::set);
+        final LongPromise mapped = promise.thenMap(value -> value + 1);
+        final IllegalStateException error = new IllegalStateException("boom");
+
+        promise.reject(error);
+
+        assertSame(error, cause.get());
+        assertTrue(promise.failure());
+        assertSame(error, mapped.cause());
+        assertEquals(-1L, promise.orElse(-1L));
+        try {
+            promise.get();
+            fail();
+        } catch (IllegalStateException expected) {
+            assertSame(error, expected);
+        }
+    }
+
+    @Test
+    public void testDoubleAndBoolean() {
+        final DoublePromise doublePromise = Promises.doublePromise();
+        doublePromise.reply(-0.0);
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(doublePromise.get()));
+
+        final boolean[] flag = new boolean[1];
+        final BooleanPromise booleanPromise = Promises.booleanPromise().then(value -> flag[0] = value);
+        booleanPromise.reply(true);
+        assertTrue(flag[0]);
+        assertEquals(Boolean.TRUE, booleanPromise.boxed().get());
+    }
+
+    @Test
+    public void testBridges() {
+        final Promise<String> promise = Promises.promise();
+        final IntPromise length = promise.thenMapToInt(String::length);
+        final DoublePromise half = promise.thenMapToDouble(value -> value.length() / 2.0);
+        promise.reply("reakt");
+        assertEquals(5, length.get());
+        assertEquals(2.5, half.get(), 0.0);
+
+        final IntPromise fromBoxed = Promises.intPromise();
+        final IntCallback callback = fromBoxed;
+        callback.boxedCallback().reply(7);
+        assertEquals(7, fromBoxed.get());
+
+        final IntPromise fromNull = Promises.intPromise();
+        fromNull.boxedCallback().reply(null);
+        assertTrue(fromNull.cause() instanceof NullPointerException);
+    }
+}
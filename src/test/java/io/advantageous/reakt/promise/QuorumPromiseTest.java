@@ -0,0 +1,146 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QuorumPromiseTest {
+
+    @Test
+    public void testAnySucceedsWithSuccessfulChild() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<Void> any = Promises.any(first, second);
+
+        second.reply("b");
+        assertTrue(any.success());
+        assertNull(any.cause());
+    }
+
+    @Test
+    public void testFirstSuccessToleratesFailures() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> third = Promises.promise();
+        final Promise<String> winner = Promises.firstSuccess(first, second, third);
+
+        first.reject("down");
+        assertFalse(winner.complete());
+        third.reply("c");
+        second.reply("b");
+        assertEquals("c", winner.get());
+    }
+
+    @Test
+    public void testFirstSuccessFailsWhenAllFail() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> winner = Promises.firstSuccess(Arrays.asList(first, second));
+
+        first.reject("first down");
+        assertFalse(winner.complete());
+        second.reject("second down");
+        assertTrue(winner.failure());
+        assertEquals("second down", winner.cause().getMessage());
+    }
+
+    @Test
+    public void testQuorum() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final Promise<Integer> third = Promises.promise();
+        final Promise<List<Integer>> quorum = Promises.quorum(2, first, second, third);
+
+        third.reply(3);
+        second.reject("down");
+        assertFalse(quorum.complete());
+        first.reply(1);
+        assertEquals(Arrays.asList(3, 1), quorum.get());
+    }
+
+    @Test
+    public void testQuorumFailsOnceUnreachable() {
+        final Promise<Integer> first = Promises.promise();
+        final Promise<Integer> second = Promises.promise();
+        final Promise<Integer> third = Promises.promise();
+        final Promise<List<Integer>> quorum = Promises.quorum(2, Arrays.asList(first, second, third));
+
+        first.reject("first down");
+        assertFalse(quorum.complete());
+        third.reject("third down");
+        assertTrue(quorum.failure());
+        assertEquals("third down", quorum.cause().getMessage());
+
+        second.reply(2);
+        assertTrue(quorum.failure());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQuorumLargerThanPromises() {
+        Promises.quorum(3, Promises.<Integer>promise(), Promises.<Integer>promise());
+    }
+
+    @Test
+    public void testBlockingVariants() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> third = Promises.promise();
+        final Promise<String> fourth = Promises.promise();
+        final Promise<String> winner = Promises.firstSuccessBlocking(Arrays.asList(first, second));
+        final Promise<List<String>> quorum = Promises.quorumBlocking(2, Arrays.asList(third, fourth));
+
+        new Thread(() -> {
+            first.reply("a");
+            third.reply("c");
+            fourth.reply("d");
+        }).start();
+
+        assertEquals("a", winner.get());
+        assertEquals(Arrays.asList("c", "d"), quorum.get());
+    }
+
+    @Test
+    public void testReplayVariants() {
+        final Promise<String> first = Promises.promise();
+        final Promise<String> second = Promises.promise();
+        final Promise<String> third = Promises.promise();
+        final Promise<String> fourth = Promises.promise();
+        final ReplayPromise<String> winner = Promises.firstSuccessReplay(Duration.ofMillis(1000),
+                Arrays.asList(first, second));
+        final ReplayPromise<List<String>> quorum = Promises.quorumReplay(Duration.ofMillis(1000), 2,
+                Arrays.asList(third, fourth));
+
+        first.reject("down");
+        second.reply("b");
+        third.reject("down");
+
+        assertFalse(winner.checkTimeout(System.currentTimeMillis()));
+        assertEquals("b", winner.get());
+        assertFalse(quorum.checkTimeout(System.currentTimeMillis()));
+        assertTrue(quorum.failure());
+        assertTrue(fourth.cancelled());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise;
+
+import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.impl.TestTimer;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ThenComposeTest {
+
+    @Test
+    public void testCompose() {
+        final Promise<String> lookup = Promises.promise();
+        final AtomicReference<Promise<Integer>> next = new AtomicReference<>();
+        final AtomicReference<Integer> value = new AtomicReference<>();
+
+        lookup.thenCompose(id -> {
+            next.set(Promises.promise());
+            return next.get();
+        }).then(value::set);
+
+        lookup.reply("rick");
+        assertNull(value.get());
+        next.get().reply(42);
+        assertEquals(Integer.valueOf(42), value.get());
+    }
+
+    @Test
+    public void testFailures() {
+        final AtomicBoolean mapperCalled = new AtomicBoolean();
+        final Promise<String> failed = Promises.promise();
+        final Promise<Integer> skipped = failed.thenCompose(id -> {
+            mapperCalled.set(true);
+            return Promises.promise();
+        });
+        failed.reject("down");
+        assertFalse(mapperCalled.get());
+        assertEquals("down", skipped.cause().getMessage());
+
+        final Promise<String> first = Promises.promise();
+        final Promise<Integer> thrown = first.thenCompose(id -> {
+            throw new IllegalStateException("bad mapper");
+        });
+        final Promise<Integer> nullNext = first.thenCompose(id -> null);
+        final Promise<Integer> innerFailure = first.thenCompose(id -> {
+            final Promise<Integer> inner = Promises.promise();
+            inner.reject("inner");
+            return inner;
+        });
+        first.reply("rick");
+        assertTrue(thrown.cause() instanceof IllegalStateException);
+        assertTrue(nullNext.cause() instanceof NullPointerException);
+        assertEquals("inner", innerFailure.cause().getMessage());
+    }
+
+    @Test
+    public void testInvokableAndBlocking() throws Exception {
+        final Promise<String> first = Promises.blockingPromise(Duration.ofSeconds(10));
+        final Promise<Integer> composed = first.thenCompose(id ->
+                Promises.<Integer>invokablePromise(promise -> promise.reply(id.length())));
+
+        final Thread replier = new Thread(() -> first.reply("rick"));
+        replier.start();
+        assertEquals(Integer.valueOf(4), composed.get());
+        replier.join();
+    }
+
+    @Test
+    public void testTimeoutFlowsThroughChain() {
+        final TestTimer timer = new TestTimer();
+        timer.setTime(1_000);
+        final Reactor reactor = Reactor.reactor(Duration.ofSeconds(30), timer);
+        reactor.process();
+
+        final Promise<String> first = reactor.promise();
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        first.thenCompose(id -> reactor.<Integer>promise(Duration.ofSeconds(1)))
+                .catchError(cause::set);
+
+        first.reply("rick");
+        reactor.process();
+        assertNull(cause.get());
+
+        timer.setTime(10_000);
+        reactor.process();
+        assertTrue(cause.get() instanceof TimeoutException);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ContinuationStackTest {
+
+    @Test
+    public void testOrderAndClose() {
+        final ContinuationStack stack = new ContinuationStack() {
+            @Override
+            void runContinuations() {
+            }
+        };
+        assertTrue(stack.pushContinuation(ContinuationStack.THEN, "a"));
+        assertTrue(stack.pushContinuation(ContinuationStack.COMPLETE, "b"));
+        assertTrue(stack.pushContinuation(ContinuationStack.THEN, "c"));
+        assertTrue(stack.pushContinuation(ContinuationStack.COMPLETE, "d"));
+
+        assertEquals("c", stack.latestContinuation(ContinuationStack.THEN));
+        assertEquals("[b, d]", stack.continuations(ContinuationStack.COMPLETE).toString());
+
+        final List<Object> handlers = new ArrayList<>();
+        for (ContinuationStack.Node node = stack.closeContinuations(); node != null; node = node.next()) {
+            handlers.add(node.handler());
+        }
+        assertEquals("[a, b, c, d]", handlers.toString());
+        assertTrue(stack.continuationsClosed());
+        assertNull(stack.closeContinuations());
+        assertFalse(stack.pushContinuation(ContinuationStack.THEN, "e"));
+    }
+
+    @Test
+    public void testCompleteListenersAndLateRegistration() {
+        final List<String> calls = new ArrayList<>();
+        final Promise<String> promise = Promises.promise();
+        promise.whenComplete(p -> calls.add("first " + p.get()))
+                .whenComplete(p -> calls.add("second " + p.get()))
+                .then(value -> calls.add("then " + value));
+
+        promise.reply("A");
+        assertEquals("[then A, first A, second A]", calls.toString());
+
+        promise.then(value -> calls.add("late then " + value))
+                .catchError(error -> calls.add("late catch"))
+                .whenComplete(p -> calls.add("late complete"));
+        assertEquals("[then A, first A, second A, late then A, late complete]", calls.toString());
+    }
+
+    @Test
+    public void testRegistrationRacesCompletion() throws Exception {
+        final int listeners = 1000;
+        for (int run = 0; run < 20; run++) {
+            final Promise<String> promise = Promises.promise();
+            final AtomicInteger fired = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread registrar = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int index = 0; index < listeners; index++) {
+                    promise.whenComplete(p -> fired.incrementAndGet());
+                }
+            });
+            registrar.start();
+            start.countDown();
+            promise.reply("done");
+            registrar.join();
+            assertEquals(listeners, fired.get());
+        }
+    }
+
+    @Test
+    public void testReplacedHandlersAreNotRetained() {
+        final List<String> calls = new ArrayList<>();
+        final BasePromise<String> promise = new BasePromise<>();
+        for (int index = 0; index < 100; index++) {
+            final int handler = index;
+            promise.then(value -> calls.add("then " + handler))
+                    .thenExpect(value -> calls.add("expect " + handler))
+                    .catchError(error -> calls.add("catch " + handler));
+        }
+        assertEquals(1, promise.continuations(ContinuationStack.THEN).size());
+        assertEquals(1, promise.continuations(ContinuationStack.THEN_EXPECT).size());
+        assertEquals(1, promise.continuations(ContinuationStack.CATCH).size());
+
+        promise.reply("A");
+        assertEquals("[then 99, expect 99]", calls.toString());
+    }
+
+    @Test
+    public void testLateSafeThenSeesCatchHandler() throws Exception {
+        for (int run = 0; run < 200; run++) {
+            final Promise<String> promise = Promises.promise();
+            final AtomicInteger caught = new AtomicInteger();
+            final CountDownLatch start = new CountDownLatch(1);
+            promise.catchError(error -> caught.incrementAndGet());
+            final Thread registrar = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                promise.thenSafe(value -> {
+                    throw new IllegalStateException(value);
+                });
+            });
+            registrar.start();
+            start.countDown();
+            promise.reply("done");
+            registrar.join();
+            assertEquals(1, caught.get());
+        }
+    }
+}
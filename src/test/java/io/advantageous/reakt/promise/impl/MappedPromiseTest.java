@@ -0,0 +1,142 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class MappedPromiseTest {
+
+    @Test
+    public void testFusedStagesShareOneListener() {
+        final BasePromise<Integer> source = (BasePromise<Integer>) Promises.<Integer>promise();
+        final Promise<String> last = source.thenMap(value -> value + 1)
+                .thenMap(value -> value * 2)
+                .thenMap(value -> "value " + value);
+        assertEquals(1, source.continuations(ContinuationStack.COMPLETE).size());
+
+        final AtomicReference<String> value = new AtomicReference<>();
+        last.then(value::set);
+        assertEquals(1, source.continuations(ContinuationStack.COMPLETE).size());
+
+        source.reply(1);
+        assertEquals("value 4", value.get());
+    }
+
+    @Test
+    public void testIntermediateStageObservedAfterFusion() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Promise<Integer> source = Promises.promise();
+        final Promise<Integer> middle = source.thenMap(value -> {
+            calls.incrementAndGet();
+            return value + 1;
+        });
+        final Promise<Integer> last = middle.thenMap(value -> value * 10);
+
+        final AtomicReference<Integer> middleValue = new AtomicReference<>();
+        middle.then(middleValue::set);
+        last.then(value -> {
+        });
+
+        source.reply(1);
+        assertEquals(Integer.valueOf(2), middleValue.get());
+        assertEquals(Integer.valueOf(20), last.get());
+        assertEquals(1, calls.get());
+
+        final Promise<Integer> other = source.thenMap(value -> value + 1).thenMap(value -> value * 10);
+        assertEquals(Integer.valueOf(20), other.get());
+    }
+
+    @Test
+    public void testIntermediateStageReadAfterCompletion() {
+        final Promise<Integer> source = Promises.promise();
+        final Promise<Integer> middle = source.thenMap(value -> value + 1);
+        final Promise<Integer> last = middle.thenMap(value -> value * 10);
+        last.then(value -> {
+        });
+        source.reply(1);
+
+        assertTrue(middle.complete());
+        assertEquals(Integer.valueOf(2), middle.get());
+    }
+
+    @Test
+    public void testBranchingRunsSharedMapperOnce() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Promise<Integer> source = Promises.promise();
+        final Promise<Integer> middle = source.thenMap(value -> calls.incrementAndGet() + value);
+        final Promise<Integer> left = middle.thenMap(value -> value + 1);
+        final Promise<Integer> right = middle.thenMap(value -> value + 2);
+        left.then(value -> {
+        });
+        right.then(value -> {
+        });
+
+        source.reply(1);
+        assertEquals(Integer.valueOf(3), left.get());
+        assertEquals(Integer.valueOf(4), right.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testFailureReusesResult() {
+        final Promise<Integer> source = Promises.promise();
+        final BasePromise<Integer> middle = (BasePromise<Integer>) source.thenMap(value -> value + 1);
+        final BasePromise<Integer> last = (BasePromise<Integer>) middle.thenMap(value -> value * 10);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        last.catchError(error::set);
+        middle.catchError(cause -> {
+        });
+
+        final IllegalStateException cause = new IllegalStateException("boom");
+        source.reject(cause);
+        assertSame(cause, error.get());
+        assertSame(middle.result, last.result);
+        assertTrue(middle.failure());
+    }
+
+    @Test
+    public void testUnobservedStageStillMaps() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Promise<Integer> source = Promises.promise();
+        final Promise<Integer> mapped = source.thenMap(value -> calls.addAndGet(value));
+        mapped.thenMap(value -> calls.addAndGet(value * 10));
+        source.reply(1);
+        assertEquals(11, calls.get());
+        assertEquals(Integer.valueOf(1), mapped.get());
+    }
+
+    @Test
+    public void testStageAddedAfterCompletion() {
+        final Promise<Integer> source = Promises.promise();
+        final Promise<Integer> mapped = source.thenMap(value -> value + 1);
+        source.reply(1);
+
+        final Promise<Integer> late = mapped.thenMap(value -> value * 10);
+        assertEquals(Integer.valueOf(20), late.get());
+        assertEquals(Integer.valueOf(2), mapped.get());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.Result;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.ReplayPromise;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Bytes per in-flight promise. The budgets assume a 64 bit VM with compressed oops and class pointers,
+ * the default below a 32 GB heap; the test is skipped on other layouts.
+ */
+public class PromiseFootprintTest {
+
+    private static final long BASE_PROMISE_BUDGET = 32;
+    private static final long REPLAY_PROMISE_BUDGET = 56;
+
+    private static void assumeCompressedLayout() {
+        assumeTrue(VM.current().sizeOfField("java.lang.Object") == 4 && VM.current().objectHeaderSize() == 12);
+    }
+
+    @Test
+    public void testBasePromiseFootprint() {
+        assumeCompressedLayout();
+        final Promise<String> promise = new BasePromise<>();
+
+        final GraphLayout graph = GraphLayout.parseInstance(promise);
+        assertEquals("pending promise should be a single object", 1, graph.totalCount());
+        assertTrue(ClassLayout.parseInstance(promise).toPrintable(), graph.totalSize() <= BASE_PROMISE_BUDGET);
+    }
+
+    @Test
+    public void testReplayPromiseFootprint() {
+        assumeCompressedLayout();
+        final ReplayPromise<String> promise = new ReplayPromiseImpl<>(Duration.ofSeconds(10), 0);
+
+        final GraphLayout graph = GraphLayout.parseInstance(promise);
+        assertEquals("pending promise should be a single object", 1, graph.totalCount());
+        assertTrue(ClassLayout.parseInstance(promise).toPrintable(), graph.totalSize() <= REPLAY_PROMISE_BUDGET);
+    }
+
+    @Test
+    public void testCompletedPromiseFootprint() {
+        assumeCompressedLayout();
+        final ReplayPromise<String> promise = new ReplayPromiseImpl<>(Duration.ofSeconds(10), 0);
+        promise.reply(null);
+        promise.replay();
+
+        /* The promise, the shared null result and its Expected, and the closed marker every completed promise shares. */
+        final GraphLayout graph = GraphLayout.parseInstance(promise);
+        final GraphLayout shared = GraphLayout.parseInstance(Result.result(null), Result.result(null).expect());
+        assertEquals(graph.toFootprint(), 4, graph.totalCount());
+        assertEquals(graph.toFootprint(), 2, graph.subtract(shared).totalCount());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+
+package io.advantageous.reakt.promise.impl;
+
+import io.advantageous.reakt.exception.ThenHandlerException;
+import io.advantageous.reakt.promise.IntPromise;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TrampolineTest {
+
+    private static final int DEPTH = 100_000;
+
+    @Test
+    public void testDeepMapChain() {
+        final Promise<Integer> first = Promises.promise();
+        Promise<Integer> last = first;
+        for (int index = 0; index < DEPTH; index++) {
+            last = last.thenMap(value -> value + 1);
+        }
+        first.reply(0);
+        assertEquals(Integer.valueOf(DEPTH), last.get());
+        assertEquals(0, Trampoline.pending());
+    }
+
+    @Test
+    public void testDeepPrimitiveChain() {
+        final IntPromise first = Promises.intPromise();
+        IntPromise last = first;
+        for (int index = 0; index < DEPTH; index++) {
+            last = last.thenMap(value -> value + 1);
+        }
+        first.reply(0);
+        assertEquals(DEPTH, last.get());
+    }
+
+    @Test
+    public void testNestedCompletionRunsAfterCurrentHandlers() {
+        final List<String> calls = new ArrayList<>();
+        final Promise<String> outer = Promises.promise();
+        final Promise<String> inner = Promises.promise();
+        inner.then(value -> calls.add("inner " + value));
+        outer.whenComplete(promise -> {
+            inner.reply("B");
+            calls.add("outer first");
+        }).whenComplete(promise -> calls.add("outer second"));
+
+        outer.reply("A");
+        assertEquals("[outer first, outer second, inner B]", calls.toString());
+    }
+
+    @Test
+    public void testThrowingHandlerDoesNotStrandQueuedPromises() {
+        final AtomicInteger ran = new AtomicInteger();
+        final Promise<String> outer = Promises.promise();
+        final Promise<String> inner = Promises.promise();
+        inner.then(value -> ran.incrementAndGet());
+        outer.then(value -> {
+            inner.reply(value);
+            throw new IllegalStateException("handler failed");
+        });
+
+        try {
+            outer.reply("A");
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals("handler failed", expected.getMessage());
+        }
+        assertEquals(1, ran.get());
+        assertEquals(0, Trampoline.pending());
+    }
+
+    @Test
+    public void testQueuedHandlerFailureGoesToItsCatchHandler() {
+        final AtomicReference<Throwable> caught = new AtomicReference<>();
+        final Promise<String> outer = Promises.promise();
+        final Promise<String> inner = Promises.promise();
+        inner.then(value -> {
+            throw new IllegalStateException("inner failed");
+        }).catchError(caught::set);
+        outer.then(inner::reply);
+
+        outer.reply("A");
+        assertTrue(caught.get() instanceof ThenHandlerException);
+        assertEquals("inner failed", caught.get().getCause().getMessage());
+    }
+
+    @Test
+    public void testErrorIsNotCaught() {
+        final Promise<String> outer = Promises.promise();
+        outer.then(value -> {
+            throw new AssertionError("error");
+        });
+        try {
+            outer.reply("A");
+            fail();
+        } catch (AssertionError expected) {
+            assertEquals("error", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testErrorInNestedContinuationStillRunsQueue() {
+        final List<String> calls = new ArrayList<>();
+        final Promise<String> outer = Promises.promise();
+        final Promise<String> failing = Promises.promise();
+        final Promise<String> queued = Promises.promise();
+        failing.then(value -> {
+            throw new AssertionError("error");
+        });
+        queued.then(value -> calls.add("queued " + value));
+        outer.then(value -> {
+            failing.reply(value);
+            queued.reply(value);
+        });
+        try {
+            outer.reply("A");
+            fail();
+        } catch (AssertionError expected) {
+            assertEquals("error", expected.getMessage());
+        }
+        assertEquals("[queued A]", calls.toString());
+        assertEquals(0, Trampoline.pending());
+    }
+
+    @Test
+    public void testBlockingPromiseReadInsideHandler() {
+        final AtomicReference<String> value = new AtomicReference<>();
+        final Promise<String> outer = Promises.promise();
+        final Promise<String> blocking = Promises.blockingPromise(Duration.ofSeconds(2));
+        outer.then(outerValue -> {
+            blocking.reply(outerValue);
+            value.set(blocking.get());
+        });
+
+        final long start = System.nanoTime();
+        outer.reply("A");
+        assertEquals("A", value.get());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.CachedTimeSource;
+import io.advantageous.reakt.reactor.TimeSource;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class CachedTimeSourceImplTest {
+
+    @Test
+    public void testTicks() throws Exception {
+        final CachedTimeSource clock = TimeSource.cachedClock(Duration.ofMillis(1));
+        try {
+            final long start = clock.getTime();
+            assertTrue(Math.abs(start - System.currentTimeMillis()) < 1_000);
+
+            long last = start;
+            final long deadline = System.currentTimeMillis() + 5_000;
+            while (clock.getTime() < start + 20 && System.currentTimeMillis() < deadline) {
+                final long time = clock.getTime();
+                assertTrue(time >= last);
+                last = time;
+                Thread.sleep(1);
+            }
+            assertTrue(clock.getTime() >= start + 20);
+        } finally {
+            clock.close();
+        }
+
+        Thread.sleep(10);
+        final long stopped = clock.getTime();
+        Thread.sleep(20);
+        assertEquals(stopped, clock.getTime());
+    }
+
+    @Test
+    public void testMonotonic() {
+        final TimeSource monotonic = TimeSource.monotonic();
+        long last = monotonic.getTime();
+        for (int index = 0; index < 10_000; index++) {
+            final long time = monotonic.getTime();
+            assertTrue(time >= last);
+            last = time;
+        }
+    }
+}
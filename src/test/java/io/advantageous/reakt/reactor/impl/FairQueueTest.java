@@ -0,0 +1,95 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FairQueueTest {
+
+    private static final long STAMP = 1;
+
+    @Test
+    public void testWeightedShares() {
+        final FairQueue<String> queue = new FairQueue<>(1024, OverflowPolicy.FAIL, element -> STAMP);
+        final FairQueue.SubQueue<String> noisy = queue.addSubQueue(1, 1024, OverflowPolicy.FAIL);
+        final FairQueue.SubQueue<String> quiet = queue.addSubQueue(2, 1024, OverflowPolicy.FAIL);
+        for (int index = 0; index < 1000; index++) {
+            noisy.add("noisy");
+        }
+        for (int index = 0; index < 100; index++) {
+            quiet.add("quiet");
+        }
+
+        final List<String> drained = new ArrayList<>();
+        assertEquals(24, queue.drain(drained::add, 24, Long.MAX_VALUE));
+        /* One round: noisy gets one quantum, quiet two. */
+        assertEquals(FairQueue.QUANTUM, drained.stream().filter("noisy"::equals).count());
+        assertEquals(2 * FairQueue.QUANTUM, drained.stream().filter("quiet"::equals).count());
+
+        drained.clear();
+        while (drained.size() < 150) {
+            queue.drain(drained::add, 10, Long.MAX_VALUE);
+        }
+        /* The quiet tenant's backlog is served long before the noisy one's. */
+        assertEquals(100 - 2 * FairQueue.QUANTUM, drained.stream().filter("quiet"::equals).count());
+
+        assertEquals(100, quiet.drainedCount());
+        assertEquals(0, quiet.depth());
+        assertTrue(noisy.depth() > 800);
+        assertTrue(quiet.maxWaitNanos() > 0);
+        assertTrue(quiet.totalWaitNanos() >= quiet.maxWaitNanos());
+    }
+
+    @Test
+    public void testUnboundedDrain() {
+        final FairQueue<Integer> queue = new FairQueue<>(16, OverflowPolicy.FAIL, element -> STAMP);
+        final FairQueue.SubQueue<Integer> tenant = queue.addSubQueue(1, 16, OverflowPolicy.FAIL);
+        queue.defaultQueue().add(1);
+        tenant.add(2);
+        tenant.add(3);
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(3, queue.drain(drained::add, Integer.MAX_VALUE, Long.MAX_VALUE));
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.defaultQueue().tracked());
+        assertTrue(tenant.tracked());
+    }
+
+    @Test
+    public void testUnboundedDrainIsFair() {
+        final FairQueue<String> queue = new FairQueue<>(16, OverflowPolicy.FAIL, element -> STAMP);
+        final FairQueue.SubQueue<String> noisy = queue.addSubQueue(1, 1024, OverflowPolicy.FAIL);
+        final FairQueue.SubQueue<String> quiet = queue.addSubQueue(1, 1024, OverflowPolicy.FAIL);
+        for (int index = 0; index < 1000; index++) {
+            noisy.add("noisy");
+        }
+        quiet.add("quiet");
+
+        final List<String> drained = new ArrayList<>();
+        assertEquals(1001, queue.drain(drained::add, Integer.MAX_VALUE, Long.MAX_VALUE));
+        /* The quiet tenant waits for at most one quantum of the noisy burst. */
+        assertTrue(drained.indexOf("quiet") <= FairQueue.QUANTUM);
+        assertTrue(queue.isEmpty());
+    }
+}
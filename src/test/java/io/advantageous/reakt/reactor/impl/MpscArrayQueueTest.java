@@ -0,0 +1,126 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MpscArrayQueueTest {
+
+    @Test
+    public void testOfferPoll() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(3, OverflowPolicy.FAIL);
+        assertEquals(4, queue.capacity());
+        assertTrue(queue.isEmpty());
+
+        for (int index = 0; index < 4; index++) {
+            assertTrue(queue.offer(index));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+
+        for (int index = 0; index < 4; index++) {
+            assertEquals(index, (int) queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailPolicy() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(2, OverflowPolicy.FAIL);
+        queue.add(1);
+        queue.add(2);
+        queue.add(3);
+    }
+
+    @Test
+    public void testConsumerThreadUsesBacklog() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(2, OverflowPolicy.BLOCK);
+        queue.poll();
+        for (int index = 0; index < 10; index++) {
+            queue.add(index);
+        }
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(10, queue.drain(drained::add, Integer.MAX_VALUE));
+        assertEquals(10, drained.size());
+        for (int index = 0; index < 10; index++) {
+            assertEquals(index, (int) drained.get(index));
+        }
+    }
+
+    @Test
+    public void testDrainLimit() {
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(16, OverflowPolicy.FAIL);
+        for (int index = 0; index < 10; index++) {
+            queue.add(index);
+        }
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(4, queue.drain(drained::add, 4));
+        assertEquals(6, queue.size());
+        assertEquals(6, queue.drain(drained::add, 100));
+        assertEquals(10, drained.size());
+    }
+
+    @Test
+    public void testManyProducersBlock() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(256, OverflowPolicy.BLOCK);
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[][] items = new long[producers][];
+
+        for (int producer = 0; producer < producers; producer++) {
+            items[producer] = new long[]{producer};
+            final int id = producer;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int index = 0; index < perProducer; index++) {
+                    queue.add(items[id]);
+                }
+            }).start();
+        }
+
+        queue.poll();
+        start.countDown();
+
+        final int[] counts = new int[producers];
+        int total = 0;
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (total < producers * perProducer && System.nanoTime() < deadline) {
+            total += queue.drain(item -> counts[(int) item[0]]++, 256);
+        }
+        assertEquals(producers * perProducer, total);
+        for (int count : counts) {
+            assertEquals(perProducer, count);
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
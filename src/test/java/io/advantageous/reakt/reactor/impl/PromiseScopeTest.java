@@ -0,0 +1,181 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.exception.PromiseCancelledException;
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.promise.Promises;
+import io.advantageous.reakt.reactor.PromiseScope;
+import io.advantageous.reakt.reactor.Reactor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.advantageous.reakt.reactor.Reactor.reactor;
+import static org.junit.Assert.*;
+
+public class PromiseScopeTest {
+
+    private Reactor reactor;
+
+    @Before
+    public void before() {
+        final TestTimer testTimer = new TestTimer();
+        testTimer.setTime(System.currentTimeMillis());
+        reactor = reactor(Duration.ofSeconds(30), testTimer);
+        reactor.process();
+    }
+
+    @Test
+    public void testAll() {
+        final PromiseScope scope = reactor.scope();
+        final Promise<String> first = scope.promise();
+        final Promise<String> second = scope.promise();
+        final AtomicBoolean done = new AtomicBoolean();
+        scope.all().then(v -> done.set(true));
+
+        first.resolve("a");
+        reactor.process();
+        assertFalse(done.get());
+
+        second.resolve("b");
+        reactor.process();
+        assertTrue(done.get());
+        assertFalse(scope.closed());
+    }
+
+    @Test
+    public void testAllFailsFast() {
+        final PromiseScope scope = reactor.scope();
+        final Promise<String> failed = scope.promise();
+        final AtomicBoolean queuedReplayed = new AtomicBoolean();
+        final Promise<String> queued = scope.<String>promise().then(value -> queuedReplayed.set(true));
+        final AtomicInteger released = new AtomicInteger();
+        final AtomicReference<Throwable> outstandingCause = new AtomicReference<>();
+        final Promise<String> outstanding = scope.<String>promise().catchError(outstandingCause::set);
+        outstanding.onCancel(released::incrementAndGet);
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        scope.all().catchError(cause::set);
+
+        /* Both replies are queued before the reactor gets to them, the failure is replayed first. */
+        failed.reject("boom");
+        queued.resolve("late");
+        reactor.process();
+        reactor.process();
+
+        assertEquals("boom", cause.get().getMessage());
+        assertTrue(scope.closed());
+        assertFalse(queuedReplayed.get());
+        assertTrue(outstanding.cancelled());
+        assertEquals(1, released.get());
+        assertTrue(outstandingCause.get() instanceof PromiseCancelledException);
+    }
+
+    @Test
+    public void testAllSettled() {
+        final PromiseScope scope = reactor.scope();
+        final Promise<String> failed = scope.promise();
+        final Promise<String> succeeded = scope.promise();
+        final AtomicBoolean done = new AtomicBoolean();
+        scope.allSettled().then(v -> done.set(true));
+
+        failed.reject("boom");
+        reactor.process();
+        assertFalse(done.get());
+        assertFalse(succeeded.complete());
+
+        succeeded.resolve("ok");
+        reactor.process();
+        assertTrue(done.get());
+        assertFalse(scope.closed());
+    }
+
+    @Test
+    public void testCloseDropsLateReplies() {
+        final PromiseScope scope = reactor.scope();
+        final AtomicBoolean replayed = new AtomicBoolean();
+        final Promise<String> child = scope.<String>promise().then(value -> replayed.set(true));
+        final AtomicInteger released = new AtomicInteger();
+        child.onCancel(released::incrementAndGet);
+        final AtomicReference<Throwable> joinCause = new AtomicReference<>();
+        scope.allSettled().catchError(joinCause::set);
+        reactor.process();
+
+        scope.close();
+        scope.close();
+        child.resolve("late");
+        reactor.process();
+
+        assertFalse(replayed.get());
+        assertEquals(1, released.get());
+        assertTrue(joinCause.get() instanceof PromiseCancelledException);
+    }
+
+    @Test
+    public void testAddAfterClose() {
+        final PromiseScope scope = reactor.scope();
+        final AtomicBoolean ran = new AtomicBoolean();
+        final Promise<Object> adopted = scope.add(Promises.invokablePromise(promise -> {
+            ran.set(true);
+            promise.resolve();
+        }));
+        scope.close();
+        adopted.invoke();
+        assertFalse(ran.get());
+
+        final Promise<Object> created = scope.promise();
+        assertTrue(created.cancelled());
+        assertTrue(scope.add(Promises.promise()).cancelled());
+    }
+
+    @Test
+    public void testCompletedChildrenAreForgotten() {
+        final PromiseScope scope = reactor.scope();
+        for (int index = 0; index < 100; index++) {
+            scope.<String>promise().resolve("DONE");
+            scope.add(Promises.<String>promise()).resolve("DONE");
+        }
+        final Promise<String> outstanding = scope.promise();
+        scope.allSettled();
+        reactor.process();
+        assertEquals(3, ((PromiseScopeImpl) scope).tracked());
+
+        outstanding.resolve("DONE");
+        reactor.process();
+        assertEquals(0, ((PromiseScopeImpl) scope).tracked());
+    }
+
+    @Test
+    public void testAllAfterChildFailed() {
+        final PromiseScope scope = reactor.scope();
+        scope.<String>promise().reject("boom");
+        reactor.process();
+        final Promise<String> outstanding = scope.promise();
+
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        scope.all().catchError(cause::set);
+        assertEquals("boom", cause.get().getMessage());
+        assertTrue(scope.closed());
+        assertTrue(outstanding.cancelled());
+    }
+}
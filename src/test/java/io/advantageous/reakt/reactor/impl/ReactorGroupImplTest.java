@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.Promise;
+import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorGroup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ReactorGroupImplTest {
+
+    private ReactorGroup group;
+
+    @Before
+    public void before() {
+        group = ReactorGroup.reactorGroup(4);
+        group.start();
+    }
+
+    @After
+    public void after() {
+        group.stop();
+    }
+
+    @Test
+    public void testKeyAffinity() {
+        for (int index = 0; index < 1000; index++) {
+            final String key = "user-" + index;
+            assertSame(group.reactorFor(key), group.reactorFor(key));
+        }
+        final Set<Reactor> used = new HashSet<>();
+        for (int index = 0; index < 1000; index++) {
+            used.add(group.reactorFor("user-" + index));
+        }
+        assertEquals(4, used.size());
+    }
+
+    @Test
+    public void testJumpConsistentHashMovesFewKeys() {
+        int moved = 0;
+        for (long key = 0; key < 10_000; key++) {
+            final int before = ReactorGroupImpl.jumpConsistentHash(key, 4);
+            final int after = ReactorGroupImpl.jumpConsistentHash(key, 5);
+            assertTrue(before < 4 && after < 5);
+            if (before != after) {
+                assertEquals(4, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 1_000 && moved < 3_000);
+    }
+
+    @Test
+    public void testRoundRobin() {
+        final Set<Reactor> used = new HashSet<>();
+        for (int index = 0; index < 4; index++) {
+            used.add(group.next());
+        }
+        assertEquals(4, used.size());
+        assertNull(group.current());
+    }
+
+    @Test
+    public void testPromiseStaysOnShard() throws Exception {
+        final Reactor shard = group.reactorFor("key");
+        final AtomicReference<Thread> shardThread = new AtomicReference<>();
+        final AtomicReference<Thread> replayThread = new AtomicReference<>();
+        final AtomicReference<Reactor> promiseReactor = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        shard.deferRun(() -> {
+            shardThread.set(Thread.currentThread());
+            promiseReactor.set(group.reactor());
+            final Promise<String> promise = group.reactor().promise();
+            promise.then(value -> {
+                replayThread.set(Thread.currentThread());
+                latch.countDown();
+            });
+            /* Reply from another thread. */
+            new Thread(() -> promise.reply("DONE")).start();
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertSame(shard, promiseReactor.get());
+        assertSame(shardThread.get(), replayThread.get());
+    }
+}
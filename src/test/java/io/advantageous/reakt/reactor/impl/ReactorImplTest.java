@@ -18,10 +18,21 @@
 
 package io.advantageous.reakt.reactor.impl;
 
+import io.advantageous.reakt.exception.PromiseCancelledException;
+import io.advantageous.reakt.exception.PromiseTimeoutException;
+import io.advantageous.reakt.promise.LongPromise;
 import io.advantageous.reakt.promise.Promise;
 import io.advantageous.reakt.promise.Promises;
 import io.advantageous.reakt.promise.ReplayPromise;
+import io.advantageous.reakt.promise.impl.ConfinedReplayPromise;
+import io.advantageous.reakt.promise.impl.PooledReplayPromise;
+import io.advantageous.reakt.reactor.OverflowPolicy;
+import io.advantageous.reakt.reactor.Priority;
 import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorBuilder;
+import io.advantageous.reakt.reactor.RepeatMode;
+import io.advantageous.reakt.reactor.TaskHandle;
+import io.advantageous.reakt.reactor.Tenant;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -29,9 +40,11 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import static io.advantageous.reakt.reactor.Reactor.reactor;
@@ -85,6 +98,108 @@ public class ReactorImplTest {
     }
 
 
+    @Test
+    public void testTimeoutException() {
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final long start = testTimer.getTime();
+        reactor.promise(Duration.ofSeconds(1)).catchError(cause::set);
+        reactor.process();
+
+        testTimer.setTime(start + 5_000);
+        reactor.process();
+
+        assertTrue(cause.get() instanceof TimeoutException);
+        final PromiseTimeoutException timeout = (PromiseTimeoutException) cause.get();
+        assertEquals(0, timeout.getStackTrace().length);
+        assertEquals(1_000, timeout.timeout());
+        assertEquals(start + 5_000, timeout.time());
+        assertTrue(timeout.elapsedTime() > 1_000);
+        assertTrue(timeout.getMessage().startsWith("Operation timed out start time " + timeout.startTime()));
+    }
+
+    @Test
+    public void testTimeoutRunsCancelHooks() {
+        final AtomicInteger released = new AtomicInteger();
+        final Promise<Object> promise = reactor.promise(Duration.ofSeconds(1));
+        /* The service side registers a hook that frees what the call holds. */
+        promise.onCancel(released::incrementAndGet);
+        reactor.process();
+
+        testTimer.setTime(testTimer.getTime() + 5_000);
+        reactor.process();
+
+        assertEquals(1, released.get());
+        assertTrue(promise.cancelled());
+    }
+
+    @Test
+    public void testUpstreamTimeoutDoesNotCancelDownstream() {
+        final AtomicInteger released = new AtomicInteger();
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final Promise<Object> upstream = reactor.promise(Duration.ofSeconds(1));
+        final Promise<Object> downstream = Promises.promise();
+        final Promise<String> mapped = upstream.thenMap(String::valueOf);
+        upstream.catchError(downstream::reject);
+        downstream.onCancel(released::incrementAndGet);
+        mapped.catchError(cause::set).onCancel(released::incrementAndGet);
+        reactor.process();
+
+        testTimer.setTime(testTimer.getTime() + 5_000);
+        reactor.process();
+
+        assertTrue(upstream.cancelled());
+        assertTrue(downstream.failure());
+        assertTrue(downstream.cause() instanceof PromiseTimeoutException);
+        assertTrue(cause.get() instanceof PromiseTimeoutException);
+        assertFalse(downstream.cancelled());
+        assertFalse(mapped.cancelled());
+        assertEquals(0, released.get());
+    }
+
+    @Test
+    public void testCancelReactorPromise() {
+        final AtomicInteger released = new AtomicInteger();
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final Promise<Object> promise = reactor.promise(Duration.ofSeconds(1)).catchError(cause::set);
+        promise.onCancel(released::incrementAndGet);
+
+        assertTrue(promise.cancel());
+        assertFalse(promise.cancel());
+        reactor.process();
+
+        assertEquals(1, released.get());
+        assertTrue(cause.get() instanceof PromiseCancelledException);
+    }
+
+    @Test
+    public void testTimeoutManyPromises() {
+
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger thens = new AtomicInteger();
+        final List<Promise<Object>> promises = new ArrayList<>();
+
+        for (int index = 0; index < 10_000; index++) {
+            promises.add(reactor.promise(Duration.ofSeconds(1 + index % 5))
+                    .catchError(error -> errors.incrementAndGet())
+                    .then(object -> thens.incrementAndGet()));
+        }
+        reactor.process();
+
+        for (int index = 0; index < promises.size(); index += 2) {
+            promises.get(index).resolve(new Object());
+        }
+        reactor.process();
+        assertEquals(5_000, thens.get());
+        assertEquals(0, errors.get());
+
+        testTimer.setTime(testTimer.getTime() + Duration.ofSeconds(10).toMillis());
+        reactor.process();
+
+        assertEquals(5_000, thens.get());
+        assertEquals(5_000, errors.get());
+    }
+
+
     @Test
     public void normalCall() {
 
@@ -173,6 +288,519 @@ public class ReactorImplTest {
     }
 
 
+    @Test
+    public void testCancelOneShotTask() {
+        AtomicLong count = new AtomicLong();
+        final TaskHandle handle = reactor.runTaskAfter(Duration.ofSeconds(1), count::incrementAndGet);
+        reactor.process();
+        handle.cancel();
+        assertTrue(handle.cancelled());
+
+        testTimer.setTime(System.currentTimeMillis() + Duration.ofMillis(1001).toMillis());
+        reactor.process();
+        assertEquals(0, count.get());
+    }
+
+
+    @Test
+    public void testCancelRepeatingTask() {
+        AtomicLong count = new AtomicLong();
+        final TaskHandle handle = reactor.addRepeatingTask(Duration.ofSeconds(1), count::incrementAndGet);
+        reactor.process();
+        assertEquals(1, count.get());
+
+        handle.cancel();
+        testTimer.setTime(System.currentTimeMillis() + Duration.ofMillis(1001).toMillis());
+        reactor.process();
+        assertEquals(1, count.get());
+    }
+
+
+    @Test
+    public void testFixedRateTask() {
+        final long start = testTimer.getTime();
+        final List<Long> fixedRate = new ArrayList<>();
+        final List<Long> fixedDelay = new ArrayList<>();
+        reactor.addRepeatingTask(Duration.ofMillis(100), RepeatMode.FIXED_RATE,
+                () -> fixedRate.add(testTimer.getTime() - start));
+        reactor.addRepeatingTask(Duration.ofMillis(100), RepeatMode.FIXED_DELAY,
+                () -> fixedDelay.add(testTimer.getTime() - start));
+        reactor.process();
+
+        /* The reactor was late, fixed rate catches up one run per tick, fixed delay does not. */
+        testTimer.setTime(start + 350);
+        reactor.process();
+        testTimer.setTime(start + 351);
+        reactor.process();
+        testTimer.setTime(start + 352);
+        reactor.process();
+
+        assertEquals(Arrays.asList(0L, 350L, 351L, 352L), fixedRate);
+        assertEquals(Arrays.asList(0L, 350L), fixedDelay);
+    }
+
+
+    @Test
+    public void testSmallQueuesOnReactorThread() {
+        final Reactor small = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setQueueCapacity(4).setOverflowPolicy(OverflowPolicy.BLOCK).build();
+        small.process();
+
+        final AtomicInteger count = new AtomicInteger();
+        final List<Promise<String>> promises = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            small.deferRun(count::incrementAndGet);
+            promises.add(small.<String>promise().then(value -> count.incrementAndGet()));
+        }
+        promises.forEach(promise -> promise.resolve("DONE"));
+        small.process();
+        assertEquals(200, count.get());
+    }
+
+
+    @Test
+    public void testOverflowBeforeFirstProcess() {
+        final Reactor small = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setQueueCapacity(16).setOverflowPolicy(OverflowPolicy.BLOCK).build();
+
+        final AtomicInteger count = new AtomicInteger();
+        for (int index = 0; index < 100; index++) {
+            small.deferRun(count::incrementAndGet);
+            small.<String>promise().then(value -> count.incrementAndGet()).resolve("DONE");
+        }
+        small.process();
+        assertEquals(200, count.get());
+    }
+
+
+    @Test
+    public void testBudgetsCarryWorkToNextTick() {
+        final Reactor budgeted = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setDeferRunBudget(5).setReplyBudget(10).build();
+        budgeted.process();
+
+        final AtomicInteger deferred = new AtomicInteger();
+        final AtomicInteger replies = new AtomicInteger();
+        final AtomicInteger ticks = new AtomicInteger();
+        budgeted.addRepeatingTask(Duration.ofMillis(1), ticks::incrementAndGet);
+        for (int index = 0; index < 100; index++) {
+            budgeted.deferRun(deferred::incrementAndGet);
+            budgeted.<String>promise().then(value -> replies.incrementAndGet()).resolve("DONE");
+        }
+
+        assertEquals(16, budgeted.process());
+        assertEquals(5, deferred.get());
+        assertEquals(10, replies.get());
+        assertEquals(1, ticks.get());
+        assertTrue(budgeted.workRemaining());
+
+        int tickCount = 1;
+        while (budgeted.workRemaining()) {
+            testTimer.setTime(testTimer.getTime() + 2);
+            budgeted.process();
+            tickCount++;
+        }
+        assertEquals(20, tickCount);
+        assertEquals(100, deferred.get());
+        assertEquals(100, replies.get());
+        /* The repeating task kept its turn while the floods were drained. */
+        assertEquals(20, ticks.get());
+    }
+
+
+    @Test
+    public void testPriorityLanes() {
+        final Reactor lanes = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setReplyBudget(10).build();
+        lanes.process();
+
+        final List<Priority> replayed = new ArrayList<>();
+        for (int index = 0; index < 50; index++) {
+            lanes.<String>promise(Priority.LOW).then(value -> replayed.add(Priority.LOW)).resolve("DONE");
+        }
+        for (int index = 0; index < 50; index++) {
+            lanes.<String>promise(Priority.HIGH).then(value -> replayed.add(Priority.HIGH)).resolve("DONE");
+        }
+
+        /* HIGH gets its weighted share plus what NORMAL left unused, LOW still gets its share. */
+        lanes.process();
+        assertEquals(10, replayed.size());
+        assertEquals(9, replayed.stream().filter(priority -> priority == Priority.HIGH).count());
+        assertEquals(Priority.HIGH, replayed.get(0));
+
+        while (lanes.workRemaining()) {
+            lanes.process();
+        }
+        assertEquals(100, replayed.size());
+        assertEquals(Priority.LOW, replayed.get(99));
+    }
+
+    @Test
+    public void testDeferRunPriority() {
+        final List<String> order = new ArrayList<>();
+        reactor.deferRun(Priority.LOW, () -> order.add("low"));
+        reactor.deferRun(() -> order.add("normal"));
+        reactor.deferRun(Priority.HIGH, () -> order.add("high"));
+        reactor.process();
+        assertEquals(Arrays.asList("high", "normal", "low"), order);
+    }
+
+
+    @Test
+    public void testNoisyTenant() {
+        final Reactor shared = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setReplyBudget(32).setDeferRunBudget(32).build();
+        shared.process();
+        final Tenant noisy = shared.tenant("noisy");
+        final Tenant quiet = shared.tenant("quiet");
+        assertSame(noisy, shared.tenant("noisy"));
+
+        final AtomicInteger noisyCount = new AtomicInteger();
+        final AtomicInteger quietCount = new AtomicInteger();
+        for (int index = 0; index < 1000; index++) {
+            noisy.<String>promise().then(value -> noisyCount.incrementAndGet()).resolve("DONE");
+        }
+        for (int index = 0; index < 20; index++) {
+            quiet.<String>promise().then(value -> quietCount.incrementAndGet()).resolve("DONE");
+            quiet.deferRun(quietCount::incrementAndGet);
+        }
+        assertEquals(1000, noisy.replyQueueDepth());
+        assertEquals(20, quiet.deferRunQueueDepth());
+
+        /* The quiet tenant is done in a few ticks even though the noisy one queued first. */
+        int ticks = 0;
+        while (quietCount.get() < 40) {
+            shared.process();
+            ticks++;
+        }
+        assertTrue(ticks <= 3);
+        assertTrue(noisyCount.get() < 100);
+        assertTrue(noisy.replyQueueDepth() > 900);
+        assertTrue(quiet.maxReplyWait().toNanos() > 0);
+        assertTrue(quiet.averageReplyWait().compareTo(quiet.maxReplyWait()) <= 0);
+
+        while (shared.workRemaining()) {
+            shared.process();
+        }
+        assertEquals(1000, noisyCount.get());
+    }
+
+
+    @Test
+    public void testReadTimeOncePerTick() {
+        final AtomicLong reads = new AtomicLong();
+        testTimer.setTime(1000);
+        final Reactor perTick = ReactorBuilder.reactorBuilder().setDefaultTimeout(Duration.ofMillis(100))
+                .setTimeSource(() -> {
+                    reads.incrementAndGet();
+                    return testTimer.getTime();
+                })
+                .setReadTimeOncePerTick(true).build();
+        perTick.process();
+
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        reads.set(0);
+        for (int index = 0; index < 100; index++) {
+            perTick.promise().catchError(error -> timedOut.set(true));
+        }
+        assertEquals(0, reads.get());
+
+        /* Promises started at the tick time, 1000. */
+        testTimer.setTime(1101);
+        perTick.process();
+        testTimer.setTime(1150);
+        perTick.process();
+        assertEquals(2, reads.get());
+        assertTrue(timedOut.get());
+    }
+
+
+    @Test
+    public void testPooledPromisesAreRecycled() {
+        final Reactor pooled = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setPromisePoolSize(16).build();
+        pooled.process();
+
+        final AtomicInteger count = new AtomicInteger();
+        final Promise<String> first = pooled.<String>promise().then(value -> count.incrementAndGet());
+        assertTrue(first instanceof PooledReplayPromise.Ref);
+        first.resolve("DONE");
+        assertTrue(first.complete());
+        pooled.process();
+        assertEquals(1, count.get());
+
+        /* Recycled: the same promise comes back with a new generation and the old ref is stale. */
+        final Promise<String> second = pooled.<String>promise().then(value -> count.addAndGet(10));
+        final PooledReplayPromise.Ref<String> firstRef = (PooledReplayPromise.Ref<String>) first;
+        final PooledReplayPromise.Ref<String> secondRef = (PooledReplayPromise.Ref<String>) second;
+        assertTrue(firstRef.stale());
+        assertFalse(secondRef.stale());
+        assertEquals(firstRef.generation() + 1, secondRef.generation());
+
+        try {
+            first.then(value -> count.addAndGet(100));
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        /* A late reply on the stale ref does not complete the new use. */
+        first.resolve("LATE");
+        assertFalse(second.complete());
+        pooled.process();
+        assertEquals(1, count.get());
+
+        second.resolve("DONE");
+        pooled.process();
+        assertEquals(11, count.get());
+    }
+
+    @Test
+    public void testPooledPromiseReusedBeforeItReachedTheWheel() {
+        final Reactor pooled = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setPromisePoolSize(16).build();
+        pooled.process();
+
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicReference<Promise<String>> reused = new AtomicReference<>();
+        /* The inner promise comes back and is released in the same drain that created it, then it is reused. */
+        pooled.<String>promise().then(value -> {
+            pooled.<String>promise().then(inner -> {
+                count.incrementAndGet();
+                pooled.deferRun(() -> reused.set(pooled.<String>promise().then(last -> count.incrementAndGet())));
+            }).resolve("INNER");
+        }).resolve("OUTER");
+        pooled.process();
+        pooled.process();
+        pooled.process();
+        assertEquals(1, ((ReactorImpl) pooled).pendingTimeouts());
+
+        reused.get().resolve("DONE");
+        pooled.process();
+        pooled.process();
+        assertEquals(2, count.get());
+        assertEquals(0, ((ReactorImpl) pooled).pendingTimeouts());
+    }
+
+    @Test
+    public void testPooledPromiseTimeout() {
+        testTimer.setTime(0);
+        final Reactor pooled = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setDefaultTimeout(Duration.ofMillis(100)).setPromisePoolSize(16).build();
+        pooled.process();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Promise<String> promise = pooled.<String>promise().catchError(error::set);
+        pooled.process();
+        testTimer.setTime(200);
+        pooled.process();
+        assertNotNull(error.get());
+        assertTrue(((PooledReplayPromise.Ref<String>) promise).stale());
+
+        /* Reply after the timeout and recycle is dropped. */
+        final AtomicInteger count = new AtomicInteger();
+        final Promise<String> next = pooled.<String>promise().then(value -> count.incrementAndGet());
+        promise.resolve("LATE");
+        assertFalse(next.complete());
+        next.resolve("DONE");
+        pooled.process();
+        assertEquals(1, count.get());
+    }
+
+
+    @Test
+    public void testConfinedPromises() throws Exception {
+        final Reactor confined = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setConfinedPromises(true).build();
+        confined.process();
+
+        final AtomicReference<String> value = new AtomicReference<>();
+        final Promise<String> promise = confined.<String>promise().then(value::set);
+        assertTrue(promise instanceof ConfinedReplayPromise);
+
+        /* The result is handed off from another thread and replayed on this one. */
+        final Thread producer = new Thread(() -> promise.resolve("DONE"));
+        producer.start();
+        producer.join();
+        assertTrue(promise.complete());
+        assertNull(value.get());
+        confined.process();
+        assertEquals("DONE", value.get());
+
+        if (ConfinedReplayPromise.class.desiredAssertionStatus()) {
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final Thread other = new Thread(() -> {
+                try {
+                    promise.catchError(e -> { });
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            other.start();
+            other.join();
+            assertTrue(error.get() instanceof AssertionError);
+        }
+    }
+
+
+    @Test
+    public void testConfinedPromisesOnEveryPath() {
+        final Reactor confined = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setConfinedPromises(true).build();
+        confined.process();
+
+        assertTrue(confined.promise(Priority.HIGH) instanceof ConfinedReplayPromise);
+        assertTrue(confined.tenant("acme").promise() instanceof ConfinedReplayPromise);
+        assertTrue(confined.promiseString() instanceof ConfinedReplayPromise);
+        assertTrue(confined.promiseList(String.class) instanceof ConfinedReplayPromise);
+    }
+
+    @Test
+    public void testConfinedPromiseLateHandlers() {
+        final Reactor confined = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setConfinedPromises(true).build();
+        confined.process();
+
+        final Promise<String> promise = confined.promise();
+        promise.resolve("DONE");
+        confined.process();
+
+        final AtomicReference<String> value = new AtomicReference<>();
+        final AtomicInteger completed = new AtomicInteger();
+        promise.then(value::set).whenComplete(p -> completed.incrementAndGet());
+        assertEquals("DONE", value.get());
+        assertEquals(1, completed.get());
+
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final AtomicInteger released = new AtomicInteger();
+        final Promise<String> cancelled = confined.promise();
+        cancelled.cancel();
+        confined.process();
+        cancelled.catchError(cause::set).onCancel(released::incrementAndGet);
+        assertTrue(cause.get() instanceof PromiseCancelledException);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    public void testInvokeWithConfinedReactor() {
+        final Reactor confined = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setConfinedPromises(true).build();
+        confined.process();
+
+        final AtomicReference<String> value = new AtomicReference<>();
+        final AtomicInteger completed = new AtomicInteger();
+        Promises.<String>invokablePromise(promise -> promise.resolve("DONE"))
+                .thenSafe(value::set)
+                .whenComplete(p -> completed.incrementAndGet())
+                .invokeWithReactor(confined);
+        confined.process();
+        assertEquals("DONE", value.get());
+        assertEquals(1, completed.get());
+
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        Promises.<String>invokablePromise(promise -> promise.reject("FAILED"))
+                .catchError(cause::set)
+                .invokeWithReactor(confined, Duration.ofSeconds(10));
+        confined.process();
+        assertEquals("FAILED", cause.get().getMessage());
+    }
+
+    @Test
+    public void testPooledPromisesOnEveryPath() {
+        final Reactor pooled = ReactorBuilder.reactorBuilder().setTimeSource(testTimer)
+                .setPromisePoolSize(16).build();
+        pooled.process();
+
+        final AtomicInteger count = new AtomicInteger();
+        final Promise<String> high = pooled.<String>promise(Priority.HIGH).then(value -> count.incrementAndGet());
+        final Tenant acme = pooled.tenant("acme");
+        final Promise<String> tenant = acme.<String>promise().then(value -> count.incrementAndGet());
+        assertTrue(high instanceof PooledReplayPromise.Ref);
+        assertTrue(tenant instanceof PooledReplayPromise.Ref);
+
+        high.resolve("DONE");
+        tenant.resolve("DONE");
+        pooled.process();
+        assertEquals(2, count.get());
+        assertEquals(0, acme.replyQueueDepth());
+    }
+
+
+    @Test
+    public void testPrimitivePromiseReplaysOnReactorThread() throws Exception {
+        final AtomicLong value = new AtomicLong();
+        final AtomicReference<Thread> handlerThread = new AtomicReference<>();
+        final LongPromise promise = reactor.longPromise().then(result -> {
+            handlerThread.set(Thread.currentThread());
+            value.set(result);
+        });
+
+        final Thread producer = new Thread(() -> promise.reply(42L));
+        producer.start();
+        producer.join();
+        assertTrue(promise.complete());
+        assertEquals(0, value.get());
+
+        reactor.process();
+        assertEquals(42, value.get());
+        assertSame(Thread.currentThread(), handlerThread.get());
+    }
+
+    @Test
+    public void testProcessOrAwaitWakesOnReplies() throws Exception {
+        final Reactor awaiting = ReactorBuilder.reactorBuilder().build();
+        awaiting.process();
+
+        final AtomicInteger count = new AtomicInteger();
+        final List<Promise<String>> promises = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            promises.add(awaiting.<String>promise().then(value -> count.incrementAndGet()));
+        }
+        awaiting.process();
+
+        final Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            promises.forEach(promise -> promise.resolve("DONE"));
+        });
+        producer.start();
+
+        final long start = System.currentTimeMillis();
+        while (count.get() < 1000 && System.currentTimeMillis() - start < 5_000) {
+            awaiting.processOrAwait(Duration.ofSeconds(10));
+        }
+        producer.join();
+        assertEquals(1000, count.get());
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+
+    @Test
+    public void testProcessOrAwaitWakesForTask() {
+        final Reactor awaiting = ReactorBuilder.reactorBuilder().build();
+        awaiting.process();
+        final AtomicBoolean ran = new AtomicBoolean();
+        awaiting.runTaskAfter(Duration.ofMillis(20), () -> ran.set(true));
+
+        final long start = System.currentTimeMillis();
+        while (!ran.get() && System.currentTimeMillis() - start < 5_000) {
+            awaiting.processOrAwait(Duration.ofSeconds(10));
+        }
+        assertTrue(ran.get());
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+
+    @Test
+    public void testProcessOrAwaitMaxWait() {
+        final Reactor awaiting = ReactorBuilder.reactorBuilder().build();
+        awaiting.process();
+        final long start = System.currentTimeMillis();
+        assertEquals(0, awaiting.processOrAwait(Duration.ofMillis(20)));
+        assertTrue(System.currentTimeMillis() - start >= 15);
+    }
+
+
     @Test
     public void testDeferTask() {
         AtomicLong count = new AtomicLong();
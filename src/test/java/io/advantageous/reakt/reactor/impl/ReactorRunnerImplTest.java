@@ -0,0 +1,95 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.IdleStrategy;
+import io.advantageous.reakt.reactor.Reactor;
+import io.advantageous.reakt.reactor.ReactorRunner;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReactorRunnerImplTest {
+
+    @Test
+    public void testBackoff() {
+        final BackoffIdleStrategy strategy = new BackoffIdleStrategy(2, 2, 1_000, 4_000);
+        for (int index = 0; index < 5; index++) {
+            strategy.idle(0);
+        }
+        assertFalse(strategy.parking());
+        strategy.idle(0);
+        assertTrue(strategy.parking());
+        assertEquals(1_000, strategy.parkNanos());
+
+        strategy.idle(0);
+        assertEquals(2_000, strategy.parkNanos());
+        strategy.idle(0);
+        strategy.idle(0);
+        assertEquals(4_000, strategy.parkNanos());
+
+        /* Any work goes back to spinning. */
+        strategy.idle(3);
+        assertFalse(strategy.parking());
+        assertEquals(1_000, strategy.parkNanos());
+    }
+
+    @Test
+    public void testRunnerProcessesWork() throws Exception {
+        final Reactor reactor = Reactor.reactor();
+        final ReactorRunner runner = ReactorRunner.reactorRunner(reactor,
+                IdleStrategy.parking(Duration.ofNanos(50_000)));
+        runner.start();
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicInteger count = new AtomicInteger();
+            reactor.deferRun(() -> {
+                throw new IllegalStateException("handler failed");
+            });
+            reactor.deferRun(count::incrementAndGet);
+            reactor.runTaskAfter(Duration.ofMillis(1), latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, count.get());
+            assertTrue(runner.running());
+        } finally {
+            runner.stop();
+        }
+        assertFalse(runner.running());
+    }
+
+    @Test
+    public void testProcessReturnsWorkCount() {
+        final TestTimer timer = new TestTimer();
+        final Reactor reactor = Reactor.reactor(Duration.ofSeconds(30), timer);
+        /* The first tick runs the reactor's own timeout check. */
+        reactor.process();
+        assertEquals(0, reactor.process());
+        reactor.deferRun(() -> {
+        });
+        reactor.deferRun(() -> {
+        });
+        assertEquals(2, reactor.process());
+        assertEquals(0, reactor.process());
+    }
+}
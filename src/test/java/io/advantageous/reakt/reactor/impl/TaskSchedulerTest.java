@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.reactor.RepeatMode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TaskSchedulerTest {
+
+    @Test
+    public void testDeadlineOrder() {
+        final TaskScheduler scheduler = new TaskScheduler();
+        final List<Integer> order = new ArrayList<>();
+
+        for (int index = 9; index >= 0; index--) {
+            final int value = index;
+            scheduler.schedule(scheduler.fireOnceTask(() -> order.add(value), value * 10));
+        }
+        /* Same deadline runs in the order scheduled. */
+        scheduler.schedule(scheduler.fireOnceTask(() -> order.add(100), 50));
+
+        assertEquals(0, scheduler.runExpired(0));
+        assertEquals(7, scheduler.runExpired(51));
+        assertEquals(60, scheduler.nextDeadline());
+        assertEquals(4, scheduler.runExpired(1000));
+        assertEquals(Long.MAX_VALUE, scheduler.nextDeadline());
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            expected.add(index);
+            if (index == 5) {
+                expected.add(100);
+            }
+        }
+        assertEquals(expected, order);
+    }
+
+    @Test
+    public void testBudget() {
+        final TaskScheduler scheduler = new TaskScheduler();
+        final AtomicInteger count = new AtomicInteger();
+        for (int index = 0; index < 10; index++) {
+            scheduler.schedule(scheduler.fireOnceTask(count::incrementAndGet, index));
+        }
+        assertEquals(4, scheduler.runExpired(100, 4, Long.MAX_VALUE));
+        assertEquals(6, scheduler.size());
+        assertEquals(4, scheduler.nextDeadline());
+        assertEquals(4, scheduler.runExpired(100, 4, Long.MAX_VALUE));
+        assertEquals(2, scheduler.runExpired(100, 4, Long.MAX_VALUE));
+        assertEquals(10, count.get());
+    }
+
+    @Test
+    public void testCancelMany() {
+        final TaskScheduler scheduler = new TaskScheduler();
+        final AtomicInteger count = new AtomicInteger();
+        final List<TaskScheduler.ScheduledTask> tasks = new ArrayList<>();
+
+        for (int index = 0; index < 10_000; index++) {
+            tasks.add(scheduler.schedule(scheduler.fireOnceTask(count::incrementAndGet, index)));
+        }
+        scheduler.runExpired(-1);
+        assertEquals(10_000, scheduler.size());
+
+        for (int index = 0; index < tasks.size(); index += 2) {
+            tasks.get(index).cancel();
+        }
+        assertEquals(5_000, scheduler.runExpired(20_000));
+        assertEquals(5_000, count.get());
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void testRepeatingTaskCancelsItself() {
+        final TaskScheduler scheduler = new TaskScheduler();
+        final AtomicInteger count = new AtomicInteger();
+        final TaskScheduler.ScheduledTask[] task = new TaskScheduler.ScheduledTask[1];
+        task[0] = scheduler.schedule(scheduler.repeatingTask(() -> {
+            if (count.incrementAndGet() == 3) {
+                task[0].cancel();
+            }
+        }, 10, RepeatMode.FIXED_DELAY));
+
+        for (long time = 0; time < 1000; time += 11) {
+            scheduler.runExpired(time);
+        }
+        assertEquals(3, count.get());
+        assertEquals(0, scheduler.size());
+    }
+}
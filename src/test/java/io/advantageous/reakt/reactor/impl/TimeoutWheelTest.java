@@ -0,0 +1,120 @@
+/*
+ *
+ *  Copyright (c) 2016. Rick Hightower, Geoff Chandler
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package io.advantageous.reakt.reactor.impl;
+
+import io.advantageous.reakt.promise.Promises;
+import io.advantageous.reakt.promise.ReplayPromise;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimeoutWheelTest {
+
+    private TimeoutWheel.Entry entry(final long startTime, final long timeout, final AtomicInteger errors) {
+        final ReplayPromise<Object> promise = Promises.replayPromise(Duration.ofMillis(timeout), startTime);
+        promise.catchError(error -> errors.incrementAndGet());
+        return new TimeoutWheel.Entry(promise, startTime + timeout);
+    }
+
+    @Test
+    public void testExpire() {
+        final AtomicInteger errors = new AtomicInteger();
+        final TimeoutWheel wheel = new TimeoutWheel(10, 8, 1000);
+
+        final TimeoutWheel.Entry early = entry(1000, 50, errors);
+        final TimeoutWheel.Entry late = entry(1000, 500, errors);
+        wheel.add(early);
+        wheel.add(late);
+        assertEquals(2, wheel.size());
+
+        assertEquals(0, wheel.expire(1040));
+        assertEquals(2, wheel.size());
+
+        assertEquals(1, wheel.expire(1070));
+        assertEquals(1, errors.get());
+        assertFalse(early.linked());
+        assertTrue(late.linked());
+
+        /* Late entry shares buckets with earlier ticks but is more than one revolution away. */
+        assertEquals(0, wheel.expire(1300));
+        assertTrue(late.linked());
+
+        assertEquals(1, wheel.expire(1600));
+        assertEquals(2, errors.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRemove() {
+        final AtomicInteger errors = new AtomicInteger();
+        final TimeoutWheel wheel = new TimeoutWheel(10, 16, 0);
+
+        final TimeoutWheel.Entry first = entry(0, 100, errors);
+        final TimeoutWheel.Entry second = entry(0, 100, errors);
+        final TimeoutWheel.Entry third = entry(0, 100, errors);
+        wheel.add(first);
+        wheel.add(second);
+        wheel.add(third);
+
+        wheel.remove(second);
+        wheel.remove(second);
+        assertEquals(2, wheel.size());
+        assertFalse(second.linked());
+
+        assertEquals(2, wheel.expire(1000));
+        assertEquals(2, errors.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCompletedPromiseDoesNotTimeout() {
+        final AtomicInteger errors = new AtomicInteger();
+        final TimeoutWheel wheel = new TimeoutWheel(10, 16, 0);
+        final TimeoutWheel.Entry entry = entry(0, 100, errors);
+        wheel.add(entry);
+
+        entry.promise().reply("DONE");
+
+        assertEquals(0, wheel.expire(1000));
+        assertEquals(0, errors.get());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testManyPromises() {
+        final AtomicInteger errors = new AtomicInteger();
+        final TimeoutWheel wheel = new TimeoutWheel(10, 512, 0);
+
+        for (int index = 0; index < 100_000; index++) {
+            wheel.add(entry(index % 1000, 1000 + index % 5000, errors));
+        }
+        assertEquals(100_000, wheel.size());
+
+        int expired = 0;
+        for (long time = 0; time <= 7000; time += 100) {
+            expired += wheel.expire(time);
+        }
+        assertEquals(100_000, expired);
+        assertEquals(100_000, errors.get());
+        assertEquals(0, wheel.size());
+    }
+}